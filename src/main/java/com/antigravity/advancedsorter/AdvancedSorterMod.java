@@ -7,6 +7,8 @@ import net.minecraftforge.fml.common.Mod;
 import net.minecraftforge.fml.common.SidedProxy;
 import net.minecraftforge.fml.common.event.FMLInitializationEvent;
 import net.minecraftforge.fml.common.event.FMLPreInitializationEvent;
+import net.minecraftforge.fml.common.event.FMLServerStartingEvent;
+import net.minecraftforge.fml.common.event.FMLServerStoppedEvent;
 import net.minecraftforge.fml.common.network.simpleimpl.SimpleNetworkWrapper;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -68,4 +70,17 @@ public class AdvancedSorterMod {
         com.antigravity.advancedsorter.network.PacketHandler.registerMessages();
         com.antigravity.advancedsorter.util.ChunkLoadingHandler.register();
     }
+
+    @Mod.EventHandler
+    public void serverStarting(FMLServerStartingEvent event) {
+        com.antigravity.advancedsorter.util.TeleportBus.invalidateAllReceivers();
+        event.registerServerCommand(new com.antigravity.advancedsorter.command.CommandStuckItems());
+        event.registerServerCommand(new com.antigravity.advancedsorter.command.CommandTeleportRegistry());
+    }
+
+    @Mod.EventHandler
+    public void serverStopped(FMLServerStoppedEvent event) {
+        // Don't carry stats of this world over to the next one opened in the same game
+        com.antigravity.advancedsorter.pipes.StuckItemStats.reset();
+    }
 }
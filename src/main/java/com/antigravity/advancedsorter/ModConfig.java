@@ -0,0 +1,111 @@
+package com.antigravity.advancedsorter;
+
+import net.minecraftforge.common.config.Config;
+import net.minecraftforge.common.config.ConfigManager;
+import net.minecraftforge.fml.client.event.ConfigChangedEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+
+/**
+ * Mod configuration (config/advancedsorter.cfg).
+ */
+@Config(modid = AdvancedSorterMod.MODID)
+@Mod.EventBusSubscriber(modid = AdvancedSorterMod.MODID)
+public class ModConfig {
+
+    @Config.Comment("Item pipe settings")
+    public static final Pipes pipes = new Pipes();
+
+    public static class Pipes {
+        @Config.Comment({ "Merge stackable items travelling together in a pipe segment into one item.",
+                "Reduces per-item work on long lines fed by slow extractors." })
+        public boolean coalesceItems = true;
+
+        @Config.Comment({ "How close (in pipe lengths, 0 - 0.5) two items must be to merge.",
+                "0 only merges items at exactly the same position." })
+        @Config.RangeDouble(min = 0.0, max = 0.5)
+        public double coalesceWindow = 0.1;
+
+        @Config.Comment({ "How many ticks a pipe remembers that an inventory refused an item type.",
+                "Forgotten earlier when the inventory changes. 0 disables the cache." })
+        @Config.RangeInt(min = 0, max = 1200)
+        public int refusedInsertTicks = 40;
+
+        @Config.Comment({ "Let extraction pipes pull from several slots per cycle, up to the tier's extract amount.",
+                "Off: one slot per cycle." })
+        public boolean extractMultipleSlots = false;
+
+        @Config.Comment({ "Items that entered more pipes (or were rerouted more often) than this are taken out",
+                "of the pipes as stuck. 0 disables the limit." })
+        @Config.RangeInt(min = 0)
+        public int itemMaxHops = 1024;
+
+        @Config.Comment({ "Items travelling longer than this many ticks are taken out of the pipes as stuck.",
+                "Time spent waiting for a full destination doesn't count. 0 disables the limit." })
+        @Config.RangeInt(min = 0)
+        public int itemMaxAgeTicks = 6000;
+
+        @Config.Comment({ "What happens to stuck items: OVERFLOW sends them to the receiving teleport pipes on",
+                "overflowFrequency (dropped if none has room), DROP drops them at the pipe, VOID deletes them." })
+        public ExpiredItemAction expiredItems = ExpiredItemAction.DROP;
+
+        @Config.Comment("Teleport frequency of the overflow inventory for stuck items.")
+        @Config.RangeInt(min = 0)
+        public int overflowFrequency = 0;
+
+        @Config.Comment({ "Stacks kept per frequency for teleport receivers whose chunk isn't loaded. They are",
+                "handed over when a receiver loads. 0 disables the buffer." })
+        @Config.RangeInt(min = 0, max = 4096)
+        public int teleportBufferStacks = 64;
+
+        @Config.Comment("Fluid (mB) kept per frequency for teleport fluid receivers whose chunk isn't loaded.")
+        @Config.RangeInt(min = 0)
+        public int teleportBufferFluid = 64000;
+
+        @Config.Comment("Gas (mB) kept per frequency for teleport gas receivers whose chunk isn't loaded.")
+        @Config.RangeInt(min = 0)
+        public int teleportBufferGas = 64000;
+
+        @Config.Comment({ "Registered teleport pipes checked per tick in the background for entries whose pipe is",
+                "gone. Only loaded chunks are checked. 0 disables the background check." })
+        @Config.RangeInt(min = 0, max = 1024)
+        public int teleportSweepPerTick = 16;
+
+        @Config.Comment({ "Only keep chunks of sending teleport pipes loaded while they had traffic within this many",
+                "minutes. Traffic loads them again once something in the chunk runs. 0 keeps them loaded always." })
+        @Config.RangeInt(min = 0)
+        public int chunkLoadingIdleMinutes = 0;
+
+        @Config.Comment({ "Connected plain fluid pipes share one buffer and move fluid to the tanks and machines",
+                "next to them in one step per tick. Off: every pipe passes fluid on to its neighbors itself." })
+        public boolean fluidNetworks = true;
+    }
+
+    public enum ExpiredItemAction {
+        OVERFLOW, DROP, VOID
+    }
+
+    @Config.Comment("Client rendering settings")
+    public static final Client client = new Client();
+
+    public static class Client {
+        @Config.Comment("Items in pipes further away than this (in blocks) are not drawn.")
+        @Config.RangeInt(min = 8, max = 256)
+        public int itemRenderDistance = 48;
+
+        @Config.Comment("Items in pipes further away than this (in blocks) are drawn as flat icons.")
+        @Config.RangeInt(min = 0, max = 256)
+        public int itemDetailDistance = 16;
+
+        @Config.Comment("Max items drawn per pipe.")
+        @Config.RangeInt(min = 1, max = 256)
+        public int maxRenderedItemsPerPipe = 16;
+    }
+
+    @SubscribeEvent
+    public static void onConfigChanged(ConfigChangedEvent.OnConfigChangedEvent event) {
+        if (event.getModID().equals(AdvancedSorterMod.MODID)) {
+            ConfigManager.sync(AdvancedSorterMod.MODID, Config.Type.INSTANCE);
+        }
+    }
+}
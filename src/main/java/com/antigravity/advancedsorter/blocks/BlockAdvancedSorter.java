@@ -2,6 +2,7 @@ package com.antigravity.advancedsorter.blocks;
 
 import com.antigravity.advancedsorter.AdvancedSorterMod;
 import com.antigravity.advancedsorter.tiles.TileAdvancedSorter;
+import com.antigravity.advancedsorter.util.NeighborCapabilityCache;
 import net.minecraft.block.Block;
 import net.minecraft.block.ITileEntityProvider;
 import net.minecraft.block.material.Material;
@@ -14,6 +15,7 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.EnumHand;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.text.TextFormatting;
+import net.minecraft.world.IBlockAccess;
 import net.minecraft.world.World;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -69,4 +71,14 @@ public class BlockAdvancedSorter extends Block implements ITileEntityProvider {
         }
         return true;
     }
+
+    @Override
+    public void neighborChanged(IBlockState state, World worldIn, BlockPos pos, Block blockIn, BlockPos fromPos) {
+        NeighborCapabilityCache.onNeighborChanged(worldIn, pos, fromPos);
+    }
+
+    @Override
+    public void onNeighborChange(IBlockAccess world, BlockPos pos, BlockPos neighbor) {
+        NeighborCapabilityCache.onNeighborTileChanged(world, pos, neighbor);
+    }
 }
@@ -0,0 +1,205 @@
+package com.antigravity.advancedsorter.client.render;
+
+import com.antigravity.advancedsorter.network.PipeItemSync;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.ActiveRenderInfo;
+import net.minecraft.client.renderer.BufferBuilder;
+import net.minecraft.client.renderer.GlStateManager;
+import net.minecraft.client.renderer.OpenGlHelper;
+import net.minecraft.client.renderer.RenderHelper;
+import net.minecraft.client.renderer.RenderItem;
+import net.minecraft.client.renderer.Tessellator;
+import net.minecraft.client.renderer.block.model.IBakedModel;
+import net.minecraft.client.renderer.block.model.ItemCameraTransforms;
+import net.minecraft.client.renderer.texture.TextureAtlasSprite;
+import net.minecraft.client.renderer.texture.TextureMap;
+import net.minecraft.client.renderer.vertex.DefaultVertexFormats;
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.client.ForgeHooksClient;
+import net.minecraftforge.client.event.RenderWorldLastEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+import net.minecraftforge.items.ItemHandlerHelper;
+import org.lwjgl.opengl.GL11;
+
+import java.util.Arrays;
+
+/**
+ * Collects the travelling items of all visible pipes during the tile entity
+ * pass and draws them once per frame, grouped by item so each model is looked
+ * up and set up once instead of once per item.
+ *
+ * Near items are drawn as full item models. Far items are drawn as flat
+ * camera-facing icons (the model's particle texture), all in a single draw
+ * call.
+ */
+@SideOnly(Side.CLIENT)
+@Mod.EventBusSubscriber(Side.CLIENT)
+public class PipeItemBatch {
+
+    // Items beyond this are dropped for the frame (runaway protection)
+    private static final int MAX_ITEMS = 8192;
+
+    private static final float MODEL_SCALE = 0.25f;
+    private static final float ICON_SIZE = 0.125f;
+
+    private static int count = 0;
+    private static ItemStack[] stacks = new ItemStack[256];
+    private static double[] positions = new double[256 * 3];
+    private static int[] lights = new int[256];
+    private static boolean[] flat = new boolean[256];
+    private static long[] order = new long[256]; // Stack hash << 32 | index, groups confirmed by stacking
+
+    /**
+     * Queue an item for this frame.
+     *
+     * @param x     position relative to the camera
+     * @param light packed world light at the pipe
+     * @param icon  draw as a flat icon instead of the full model
+     */
+    public static void add(ItemStack stack, double x, double y, double z, int light, boolean icon) {
+        if (count >= MAX_ITEMS)
+            return;
+        if (count == stacks.length) {
+            int capacity = count * 2;
+            stacks = Arrays.copyOf(stacks, capacity);
+            positions = Arrays.copyOf(positions, capacity * 3);
+            lights = Arrays.copyOf(lights, capacity);
+            flat = Arrays.copyOf(flat, capacity);
+            order = Arrays.copyOf(order, capacity);
+        }
+
+        stacks[count] = stack;
+        positions[count * 3] = x;
+        positions[count * 3 + 1] = y;
+        positions[count * 3 + 2] = z;
+        lights[count] = light;
+        flat[count] = icon;
+        order[count] = ((long) PipeItemSync.hashStack(stack) << 32) | count;
+        count++;
+    }
+
+    @SubscribeEvent
+    public static void onRenderWorldLast(RenderWorldLastEvent event) {
+        if (count == 0)
+            return;
+
+        Arrays.sort(order, 0, count);
+
+        Minecraft mc = Minecraft.getMinecraft();
+        mc.getTextureManager().bindTexture(TextureMap.LOCATION_BLOCKS_TEXTURE);
+        float lastX = OpenGlHelper.lastBrightnessX;
+        float lastY = OpenGlHelper.lastBrightnessY;
+
+        renderModels(mc.getRenderItem());
+        renderIcons(mc.getRenderItem());
+
+        OpenGlHelper.setLightmapTextureCoords(OpenGlHelper.lightmapTexUnit, lastX, lastY);
+        Arrays.fill(stacks, 0, count, null);
+        count = 0;
+    }
+
+    private static void renderModels(RenderItem renderItem) {
+        float rotation = (Minecraft.getSystemTime() / 20.0f) % 360.0f;
+
+        GlStateManager.enableRescaleNormal();
+        GlStateManager.alphaFunc(GL11.GL_GREATER, 0.1f);
+        GlStateManager.enableBlend();
+        GlStateManager.tryBlendFuncSeparate(GlStateManager.SourceFactor.SRC_ALPHA,
+                GlStateManager.DestFactor.ONE_MINUS_SRC_ALPHA, GlStateManager.SourceFactor.ONE,
+                GlStateManager.DestFactor.ZERO);
+        RenderHelper.enableStandardItemLighting();
+
+        ItemStack groupStack = ItemStack.EMPTY;
+        IBakedModel model = null;
+        for (int n = 0; n < count; n++) {
+            int i = (int) order[n];
+            if (flat[i])
+                continue;
+
+            ItemStack stack = stacks[i];
+            if (model == null || !ItemHandlerHelper.canItemStacksStack(groupStack, stack)) {
+                groupStack = stack;
+                model = renderItem.getItemModelWithOverrides(stack, null, null);
+            }
+
+            setLight(lights[i]);
+            GlStateManager.pushMatrix();
+            GlStateManager.translate(positions[i * 3], positions[i * 3 + 1], positions[i * 3 + 2]);
+            GlStateManager.scale(MODEL_SCALE, MODEL_SCALE, MODEL_SCALE);
+            GlStateManager.rotate(rotation, 0, 1, 0);
+            IBakedModel transformed = ForgeHooksClient.handleCameraTransforms(model,
+                    ItemCameraTransforms.TransformType.FIXED, false);
+            renderItem.renderItem(stack, transformed);
+            GlStateManager.popMatrix();
+        }
+
+        RenderHelper.disableStandardItemLighting();
+        GlStateManager.disableBlend();
+        GlStateManager.disableRescaleNormal();
+    }
+
+    private static void renderIcons(RenderItem renderItem) {
+        float rotX = ActiveRenderInfo.getRotationX();
+        float rotZ = ActiveRenderInfo.getRotationZ();
+        float rotYZ = ActiveRenderInfo.getRotationYZ();
+        float rotXY = ActiveRenderInfo.getRotationXY();
+        float rotXZ = ActiveRenderInfo.getRotationXZ();
+
+        Tessellator tessellator = Tessellator.getInstance();
+        BufferBuilder buffer = tessellator.getBuffer();
+        boolean started = false;
+
+        ItemStack groupStack = ItemStack.EMPTY;
+        TextureAtlasSprite sprite = null;
+        for (int n = 0; n < count; n++) {
+            int i = (int) order[n];
+            if (!flat[i])
+                continue;
+
+            ItemStack stack = stacks[i];
+            if (sprite == null || !ItemHandlerHelper.canItemStacksStack(groupStack, stack)) {
+                groupStack = stack;
+                sprite = renderItem.getItemModelWithOverrides(stack, null, null).getParticleTexture();
+            }
+            if (!started) {
+                GlStateManager.alphaFunc(GL11.GL_GREATER, 0.1f);
+                GlStateManager.disableLighting();
+                buffer.begin(GL11.GL_QUADS, DefaultVertexFormats.POSITION_TEX_LMAP_COLOR);
+                started = true;
+            }
+
+            double x = positions[i * 3];
+            double y = positions[i * 3 + 1];
+            double z = positions[i * 3 + 2];
+            int sky = lights[i] >> 16 & 0xFFFF;
+            int block = lights[i] & 0xFFFF;
+            float minU = sprite.getMinU();
+            float maxU = sprite.getMaxU();
+            float minV = sprite.getMinV();
+            float maxV = sprite.getMaxV();
+            float s = ICON_SIZE;
+
+            // Camera-facing quad, same layout as particles
+            buffer.pos(x - rotX * s - rotXY * s, y - rotZ * s, z - rotYZ * s - rotXZ * s).tex(maxU, maxV)
+                    .lightmap(sky, block).color(255, 255, 255, 255).endVertex();
+            buffer.pos(x - rotX * s + rotXY * s, y + rotZ * s, z - rotYZ * s + rotXZ * s).tex(maxU, minV)
+                    .lightmap(sky, block).color(255, 255, 255, 255).endVertex();
+            buffer.pos(x + rotX * s + rotXY * s, y + rotZ * s, z + rotYZ * s + rotXZ * s).tex(minU, minV)
+                    .lightmap(sky, block).color(255, 255, 255, 255).endVertex();
+            buffer.pos(x + rotX * s - rotXY * s, y - rotZ * s, z + rotYZ * s - rotXZ * s).tex(minU, maxV)
+                    .lightmap(sky, block).color(255, 255, 255, 255).endVertex();
+        }
+
+        if (started) {
+            tessellator.draw();
+            GlStateManager.enableLighting();
+        }
+    }
+
+    private static void setLight(int light) {
+        OpenGlHelper.setLightmapTextureCoords(OpenGlHelper.lightmapTexUnit, light & 0xFFFF, light >> 16 & 0xFFFF);
+    }
+}
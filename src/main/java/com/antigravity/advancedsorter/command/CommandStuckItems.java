@@ -0,0 +1,71 @@
+package com.antigravity.advancedsorter.command;
+
+import com.antigravity.advancedsorter.pipes.StuckItemStats;
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.text.TextComponentString;
+
+import javax.annotation.Nullable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * /stuckitems [count] - list the pipes that removed the most stuck items.
+ * /stuckitems reset - clear the counters.
+ */
+public class CommandStuckItems extends CommandBase {
+
+    private static final int DEFAULT_COUNT = 10;
+
+    @Override
+    public String getName() {
+        return "stuckitems";
+    }
+
+    @Override
+    public String getUsage(ICommandSender sender) {
+        return "/stuckitems [count|reset]";
+    }
+
+    @Override
+    public int getRequiredPermissionLevel() {
+        return 2;
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+        if (args.length > 0 && args[0].equalsIgnoreCase("reset")) {
+            StuckItemStats.reset();
+            sender.sendMessage(new TextComponentString("§aStuck item counters reset."));
+            return;
+        }
+
+        int count = args.length > 0 ? parseInt(args[0], 1, 100) : DEFAULT_COUNT;
+        List<StuckItemStats.Entry> worst = StuckItemStats.getWorst(count);
+        if (worst.isEmpty()) {
+            sender.sendMessage(new TextComponentString("§aNo stuck items since the last reset."));
+            return;
+        }
+
+        sender.sendMessage(new TextComponentString(
+                "§eStuck items removed: §f" + StuckItemStats.getTotal() + "§e, worst pipes:"));
+        for (StuckItemStats.Entry entry : worst) {
+            BlockPos pos = entry.pos;
+            sender.sendMessage(new TextComponentString("§7- §f" + entry.expired + "§7 at §f" + pos.getX() + ", "
+                    + pos.getY() + ", " + pos.getZ() + "§7 (dim " + entry.dimension + ", tick " + entry.lastTick
+                    + ")"));
+        }
+    }
+
+    @Override
+    public List<String> getTabCompletions(MinecraftServer server, ICommandSender sender, String[] args,
+            @Nullable BlockPos targetPos) {
+        if (args.length == 1) {
+            return getListOfStringsMatchingLastWord(args, "reset");
+        }
+        return Collections.emptyList();
+    }
+}
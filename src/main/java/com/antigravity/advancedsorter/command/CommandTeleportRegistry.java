@@ -0,0 +1,41 @@
+package com.antigravity.advancedsorter.command;
+
+import com.antigravity.advancedsorter.util.TeleportBus;
+import com.antigravity.advancedsorter.util.TeleportRegistry;
+import net.minecraft.command.CommandBase;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.text.TextComponentString;
+
+/**
+ * /teleportregistry - registered teleport pipes and stale entries removed
+ * since the server started, per kind.
+ */
+public class CommandTeleportRegistry extends CommandBase {
+
+    @Override
+    public String getName() {
+        return "teleportregistry";
+    }
+
+    @Override
+    public String getUsage(ICommandSender sender) {
+        return "/teleportregistry";
+    }
+
+    @Override
+    public int getRequiredPermissionLevel() {
+        return 2;
+    }
+
+    @Override
+    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException {
+        TeleportRegistry registry = TeleportRegistry.get(server.getWorld(0));
+        sender.sendMessage(new TextComponentString("§eTeleport pipes (registered / stale removed):"));
+        for (TeleportBus.Channel channel : TeleportBus.Channel.values()) {
+            sender.sendMessage(new TextComponentString("§7- " + channel.name().toLowerCase() + ": §f"
+                    + registry.getPipeCount(channel) + "§7 / §f" + registry.getStaleRemoved(channel)));
+        }
+    }
+}
@@ -54,5 +54,9 @@ public class PacketHandler {
                                 packetId++, Side.SERVER);
                 INSTANCE.registerMessage(PacketCopyAutoCrafterRecipes.Handler.class, PacketCopyAutoCrafterRecipes.class,
                                 packetId++, Side.SERVER);
+
+                // Item pipes
+                INSTANCE.registerMessage(PacketPipeItemEvents.Handler.class, PacketPipeItemEvents.class,
+                                packetId++, Side.CLIENT);
         }
 }
@@ -0,0 +1,175 @@
+package com.antigravity.advancedsorter.network;
+
+import com.antigravity.advancedsorter.pipes.TileItemPipe;
+import io.netty.buffer.ByteBuf;
+import net.minecraft.client.Minecraft;
+import net.minecraft.item.ItemStack;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraftforge.fml.common.network.ByteBufUtils;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Syncs travelling item events (enter, turn, bounce, leave) of one item pipe
+ * to the client. The client simulates movement between events itself.
+ * Full stacks are only included the first time a client sees them; after
+ * that the stack id is enough (see PipeItemClientCache).
+ */
+public class PacketPipeItemEvents implements IMessage {
+
+    public static final byte ENTER = 0; // Item entered the pipe
+    public static final byte ROUTE = 1; // Item chose its exit face at the center
+    public static final byte MOVE = 2; // Item bounced or restarted its segment
+    public static final byte LEAVE = 3; // Item left the pipe
+    public static final byte STACK = 4; // Item stack changed (partial insert)
+    public static final byte EXPRESS = 5; // Like ROUTE, item runs 'count' pipes along a straight run
+
+    public static class Event {
+        public final byte type;
+        public final int itemId;
+        public final EnumFacing source;
+        public final EnumFacing direction;
+        public final int tick;
+        public final int stackId;
+        public final int count;
+
+        public Event(byte type, int itemId, EnumFacing source, EnumFacing direction, int tick, int stackId,
+                int count) {
+            this.type = type;
+            this.itemId = itemId;
+            this.source = source;
+            this.direction = direction;
+            this.tick = tick;
+            this.stackId = stackId;
+            this.count = count;
+        }
+
+        private boolean hasStack() {
+            return type == ENTER || type == STACK;
+        }
+
+        private void toBytes(ByteBuf buf) {
+            buf.writeByte(type);
+            ByteBufUtils.writeVarInt(buf, itemId, 5);
+            if (type == LEAVE) {
+                return;
+            }
+            buf.writeByte(source == null ? -1 : source.getIndex());
+            buf.writeByte(direction == null ? -1 : direction.getIndex());
+            buf.writeInt(tick);
+            if (hasStack()) {
+                ByteBufUtils.writeVarInt(buf, stackId, 5);
+                ByteBufUtils.writeVarInt(buf, count, 5);
+            } else if (type == EXPRESS) {
+                ByteBufUtils.writeVarInt(buf, count, 5);
+            }
+        }
+
+        private static Event fromBytes(ByteBuf buf) {
+            byte type = buf.readByte();
+            int itemId = ByteBufUtils.readVarInt(buf, 5);
+            if (type == LEAVE) {
+                return new Event(type, itemId, null, null, 0, 0, 0);
+            }
+            EnumFacing source = readFace(buf.readByte());
+            EnumFacing direction = readFace(buf.readByte());
+            int tick = buf.readInt();
+            int stackId = 0;
+            int count = 0;
+            if (type == ENTER || type == STACK) {
+                stackId = ByteBufUtils.readVarInt(buf, 5);
+                count = ByteBufUtils.readVarInt(buf, 5);
+            } else if (type == EXPRESS) {
+                count = ByteBufUtils.readVarInt(buf, 5);
+            }
+            return new Event(type, itemId, source, direction, tick, stackId, count);
+        }
+
+        private static EnumFacing readFace(byte index) {
+            return index < 0 ? null : EnumFacing.getFront(index);
+        }
+    }
+
+    private BlockPos pos;
+    private List<Event> events;
+    private Map<Integer, ItemStack> stacks;
+
+    public PacketPipeItemEvents() {
+    }
+
+    public PacketPipeItemEvents(BlockPos pos, List<Event> events, Map<Integer, ItemStack> stacks) {
+        this.pos = pos;
+        this.events = events;
+        this.stacks = stacks;
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf) {
+        pos = BlockPos.fromLong(buf.readLong());
+
+        int stackCount = ByteBufUtils.readVarInt(buf, 5);
+        stacks = new HashMap<>();
+        for (int i = 0; i < stackCount; i++) {
+            int id = ByteBufUtils.readVarInt(buf, 5);
+            stacks.put(id, ByteBufUtils.readItemStack(buf));
+        }
+
+        int eventCount = ByteBufUtils.readVarInt(buf, 5);
+        events = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            events.add(Event.fromBytes(buf));
+        }
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf) {
+        buf.writeLong(pos.toLong());
+
+        ByteBufUtils.writeVarInt(buf, stacks.size(), 5);
+        for (Map.Entry<Integer, ItemStack> entry : stacks.entrySet()) {
+            ByteBufUtils.writeVarInt(buf, entry.getKey(), 5);
+            ByteBufUtils.writeItemStack(buf, entry.getValue());
+        }
+
+        ByteBufUtils.writeVarInt(buf, events.size(), 5);
+        for (Event event : events) {
+            event.toBytes(buf);
+        }
+    }
+
+    public static class Handler implements IMessageHandler<PacketPipeItemEvents, IMessage> {
+        @Override
+        @SideOnly(Side.CLIENT)
+        public IMessage onMessage(PacketPipeItemEvents message, MessageContext ctx) {
+            Minecraft.getMinecraft().addScheduledTask(() -> {
+                for (Map.Entry<Integer, ItemStack> entry : message.stacks.entrySet()) {
+                    PipeItemClientCache.put(entry.getKey(), entry.getValue());
+                }
+
+                World world = Minecraft.getMinecraft().world;
+                if (world == null || !world.isBlockLoaded(message.pos)) {
+                    return;
+                }
+                TileEntity te = world.getTileEntity(message.pos);
+                if (te instanceof TileItemPipe) {
+                    TileItemPipe pipe = (TileItemPipe) te;
+                    for (Event event : message.events) {
+                        pipe.handleItemEvent(event);
+                    }
+                }
+            });
+            return null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.antigravity.advancedsorter.network;
+
+import net.minecraft.item.ItemStack;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Client-side table of item stacks seen in pipes, keyed by the server's
+ * stack id.
+ * Filled by PacketPipeItemEvents the first time the server sends a stack.
+ */
+public class PipeItemClientCache {
+
+    private static final Map<Integer, ItemStack> stacks = new HashMap<>();
+
+    public static void put(int id, ItemStack stack) {
+        stacks.put(id, ItemHandlerHelper.copyStackWithSize(stack, 1));
+    }
+
+    /**
+     * Get a copy of a known stack with the given count, or EMPTY if the stack
+     * was never received.
+     */
+    public static ItemStack get(int id, int count) {
+        ItemStack stack = stacks.get(id);
+        if (stack == null) {
+            return ItemStack.EMPTY;
+        }
+        return ItemHandlerHelper.copyStackWithSize(stack, count);
+    }
+
+    public static void clear() {
+        stacks.clear();
+    }
+}
@@ -0,0 +1,136 @@
+package com.antigravity.advancedsorter.network;
+
+import com.antigravity.advancedsorter.AdvancedSorterMod;
+import net.minecraft.entity.player.EntityPlayer;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.server.management.PlayerChunkMap;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Server side of item pipe sync. Sends queued item events to every player
+ * watching the pipe's chunk and remembers which stacks each player already
+ * knows, so repeated stacks only cost their id.
+ *
+ * Stack types get ids from the server (see {@link #stackId}); ids are never
+ * reused, so a client can't mix up two types.
+ */
+public class PipeItemSync {
+
+    // Forget known stacks past this size - they are simply sent again
+    private static final int MAX_KNOWN_STACKS = 4096;
+
+    // Forget stack types past this size - they get new ids when seen again
+    private static final int MAX_STACK_TYPES = 8192;
+
+    private static final Map<EntityPlayerMP, Set<Integer>> knownStacks = new WeakHashMap<>();
+
+    /**
+     * A stack type with an id, chained with other types of the same hash.
+     */
+    private static class StackType {
+        final ItemStack stack;
+        final int id;
+        final StackType next;
+
+        StackType(ItemStack stack, int id, StackType next) {
+            this.stack = stack;
+            this.id = id;
+            this.next = next;
+        }
+    }
+
+    // Stack types by hash (server thread only)
+    private static final Map<Integer, StackType> stackTypes = new HashMap<>();
+    private static int nextStackId = 1;
+
+    /**
+     * Id of a stack type (item, meta and NBT, not count). Stacks get the same
+     * id if and only if they stack with each other.
+     */
+    public static int stackId(ItemStack stack) {
+        int hash = hashStack(stack);
+        StackType first = stackTypes.get(hash);
+        for (StackType type = first; type != null; type = type.next) {
+            if (ItemHandlerHelper.canItemStacksStack(type.stack, stack)) {
+                return type.id;
+            }
+        }
+        if (stackTypes.size() >= MAX_STACK_TYPES) {
+            stackTypes.clear();
+            first = null;
+        }
+        StackType type = new StackType(ItemHandlerHelper.copyStackWithSize(stack, 1), nextStackId++, first);
+        stackTypes.put(hash, type);
+        return type.id;
+    }
+
+    /**
+     * Hash of a stack type (item, meta and NBT, not count). Different types
+     * may share a hash; use it for bucketing only.
+     */
+    public static int hashStack(ItemStack stack) {
+        int hash = Item.getIdFromItem(stack.getItem());
+        hash = 31 * hash + stack.getMetadata();
+        NBTTagCompound tag = stack.getTagCompound();
+        if (tag != null) {
+            hash = 31 * hash + tag.hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Send pipe events to all players that have the pipe loaded.
+     *
+     * @param stacks stacks referenced by ENTER/STACK events, keyed by stack id
+     */
+    public static void send(WorldServer world, BlockPos pos, List<PacketPipeItemEvents.Event> events,
+            Map<Integer, ItemStack> stacks) {
+        PlayerChunkMap chunkMap = world.getPlayerChunkMap();
+        int chunkX = pos.getX() >> 4;
+        int chunkZ = pos.getZ() >> 4;
+        if (chunkMap.getEntry(chunkX, chunkZ) == null) {
+            return; // Nobody is watching
+        }
+
+        // Packets are encoded off-thread, so they get their own copy of the events
+        List<PacketPipeItemEvents.Event> snapshot = null;
+
+        for (EntityPlayer player : world.playerEntities) {
+            if (!(player instanceof EntityPlayerMP))
+                continue;
+            EntityPlayerMP playerMP = (EntityPlayerMP) player;
+            if (!chunkMap.isPlayerWatchingChunk(playerMP, chunkX, chunkZ))
+                continue;
+
+            Set<Integer> known = knownStacks.computeIfAbsent(playerMP, p -> new HashSet<>());
+            if (known.size() > MAX_KNOWN_STACKS) {
+                known.clear();
+            }
+
+            Map<Integer, ItemStack> unknown = new HashMap<>();
+            for (Map.Entry<Integer, ItemStack> entry : stacks.entrySet()) {
+                if (known.add(entry.getKey())) {
+                    unknown.put(entry.getKey(), ItemHandlerHelper.copyStackWithSize(entry.getValue(), 1));
+                }
+            }
+
+            if (snapshot == null) {
+                snapshot = new ArrayList<>(events);
+            }
+            AdvancedSorterMod.network.sendTo(new PacketPipeItemEvents(pos, snapshot, unknown), playerMP);
+        }
+    }
+}
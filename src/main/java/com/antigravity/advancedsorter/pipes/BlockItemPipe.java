@@ -1,6 +1,7 @@
 package com.antigravity.advancedsorter.pipes;
 
 import com.antigravity.advancedsorter.AdvancedSorterMod;
+import com.antigravity.advancedsorter.util.NeighborCapabilityCache;
 import net.minecraft.block.Block;
 import net.minecraft.block.ITileEntityProvider;
 import net.minecraft.block.material.Material;
@@ -144,6 +145,7 @@ public class BlockItemPipe extends Block implements ITileEntityProvider {
 
     @Override
     public void neighborChanged(IBlockState state, World worldIn, BlockPos pos, Block blockIn, BlockPos fromPos) {
+        NeighborCapabilityCache.onNeighborChanged(worldIn, pos, fromPos);
         if (!worldIn.isRemote) {
             TileEntity te = worldIn.getTileEntity(pos);
             if (te instanceof TileItemPipe) {
@@ -152,6 +154,11 @@ public class BlockItemPipe extends Block implements ITileEntityProvider {
         }
     }
 
+    @Override
+    public void onNeighborChange(IBlockAccess world, BlockPos pos, BlockPos neighbor) {
+        NeighborCapabilityCache.onNeighborTileChanged(world, pos, neighbor);
+    }
+
     private void notifyNeighborPipes(World world, BlockPos pos) {
         for (EnumFacing face : EnumFacing.VALUES) {
             BlockPos neighborPos = pos.offset(face);
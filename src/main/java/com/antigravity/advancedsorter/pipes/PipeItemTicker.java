@@ -0,0 +1,316 @@
+package com.antigravity.advancedsorter.pipes;
+
+import com.antigravity.advancedsorter.AdvancedSorterMod;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.relauncher.Side;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Moves the travelling items of all item pipes in a world in one pass per
+ * server tick, instead of every pipe iterating its own item list.
+ *
+ * Movement state lives in flat arrays indexed by item slot: progress and
+ * step as fixed point ints ({@link #ONE} = one pipe length), the end of the
+ * item's way through the pipe (several pipe lengths for items on an express
+ * run), the exit direction as a byte and the owning pipe as an index into the
+ * pipe table.
+ * The pass only calls back into the pipe when an item without a direction
+ * reaches the center, or when an item reaches the end of the pipe. Items the
+ * pipe stalled at the end are skipped until their wait is over.
+ *
+ * TravellingItem keeps the stack and the remaining item state. Its progress
+ * is only written back before a callback and when the pipe needs it (NBT,
+ * coalescing), see {@link #syncProgress}.
+ */
+@Mod.EventBusSubscriber(modid = AdvancedSorterMod.MODID)
+public class PipeItemTicker {
+
+    static final int ONE = 1 << 16;
+    static final int HALF = ONE >> 1;
+
+    private static final byte NO_DIRECTION = -1;
+    private static final int REMOVED = -1;
+
+    private static final Map<World, PipeItemTicker> tickers = new WeakHashMap<>();
+
+    // Items (index = TravellingItem.tickerSlot)
+    private int itemCount = 0;
+    private int removedCount = 0;
+    private int[] progress = new int[64];
+    private int[] step = new int[64];
+    private int[] end = new int[64];
+    private byte[] direction = new byte[64];
+    private int[] wait = new int[64]; // Ticks a stalled item stays put
+    private int[] owner = new int[64]; // Pipe index, REMOVED for dead slots
+    private TravellingItem[] items = new TravellingItem[64];
+
+    // Pipes that have (or had) items (index = TileItemPipe.tickerIndex)
+    private TileItemPipe[] pipes = new TileItemPipe[16];
+    private int pipeCount = 0;
+    private int[] freePipes = new int[16];
+    private int freePipeCount = 0;
+
+    // Pipes with item events to send at the end of the tick
+    private final List<TileItemPipe> flushQueue = new ArrayList<>();
+
+    // ========== Static API ==========
+
+    @Nullable
+    private static PipeItemTicker of(TileItemPipe pipe) {
+        World world = pipe.getWorld();
+        if (world == null || world.isRemote) {
+            return null;
+        }
+        return tickers.computeIfAbsent(world, w -> new PipeItemTicker());
+    }
+
+    /**
+     * Start moving an item of a pipe (server only).
+     */
+    static void addItem(TileItemPipe pipe, TravellingItem item) {
+        PipeItemTicker ticker = of(pipe);
+        if (ticker != null) {
+            ticker.add(pipe, item);
+        }
+    }
+
+    /**
+     * Stop moving an item. Its progress is written back first.
+     */
+    static void removeItem(TileItemPipe pipe, TravellingItem item) {
+        PipeItemTicker ticker = of(pipe);
+        if (ticker != null) {
+            ticker.remove(item);
+        }
+    }
+
+    /**
+     * Write the current progress back to the items of a pipe.
+     *
+     * @param except item whose progress is left alone (being changed by the pipe)
+     */
+    static void syncProgress(TileItemPipe pipe, @Nullable TravellingItem except) {
+        PipeItemTicker ticker = of(pipe);
+        if (ticker == null) {
+            return;
+        }
+        for (TravellingItem item : pipe.travellingItems) {
+            if (item != except && item.tickerSlot >= 0) {
+                item.progress = ticker.progress[item.tickerSlot] / (float) ONE;
+            }
+        }
+    }
+
+    /**
+     * Send the pipe's queued item events at the end of this tick.
+     */
+    static void requestFlush(TileItemPipe pipe) {
+        PipeItemTicker ticker = of(pipe);
+        if (ticker != null) {
+            ticker.flushQueue.add(pipe);
+        }
+    }
+
+    /**
+     * Call when a pipe is removed or unloaded. Drops its items from the arrays.
+     */
+    static void onPipeRemoved(TileItemPipe pipe) {
+        if (pipe.tickerIndex < 0) {
+            return;
+        }
+        PipeItemTicker ticker = of(pipe);
+        if (ticker == null) {
+            return;
+        }
+        for (TravellingItem item : pipe.travellingItems) {
+            ticker.remove(item);
+        }
+        ticker.pipes[pipe.tickerIndex] = null;
+        if (ticker.freePipeCount == ticker.freePipes.length) {
+            ticker.freePipes = Arrays.copyOf(ticker.freePipes, ticker.freePipeCount * 2);
+        }
+        ticker.freePipes[ticker.freePipeCount++] = pipe.tickerIndex;
+        pipe.tickerIndex = -1;
+    }
+
+    // ========== Events ==========
+
+    @SubscribeEvent
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || event.side != Side.SERVER) {
+            return;
+        }
+        PipeItemTicker ticker = tickers.get(event.world);
+        if (ticker != null) {
+            ticker.tick();
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        tickers.remove(event.getWorld());
+    }
+
+    // ========== Items ==========
+
+    void add(TileItemPipe pipe, TravellingItem item) {
+        if (item.tickerSlot >= 0) {
+            return;
+        }
+        if (pipe.tickerIndex < 0) {
+            pipe.tickerIndex = addPipe(pipe);
+        }
+        if (itemCount == owner.length) {
+            int capacity = itemCount * 2;
+            progress = Arrays.copyOf(progress, capacity);
+            step = Arrays.copyOf(step, capacity);
+            end = Arrays.copyOf(end, capacity);
+            direction = Arrays.copyOf(direction, capacity);
+            wait = Arrays.copyOf(wait, capacity);
+            owner = Arrays.copyOf(owner, capacity);
+            items = Arrays.copyOf(items, capacity);
+        }
+
+        int slot = itemCount++;
+        progress[slot] = Math.round(item.progress * ONE);
+        step[slot] = Math.max(1, Math.round(ONE / pipe.getSpeed()));
+        end[slot] = endOf(item);
+        direction[slot] = toByte(item.direction);
+        wait[slot] = 0;
+        owner[slot] = pipe.tickerIndex;
+        items[slot] = item;
+        item.tickerSlot = slot;
+    }
+
+    private int addPipe(TileItemPipe pipe) {
+        int index;
+        if (freePipeCount > 0) {
+            index = freePipes[--freePipeCount];
+        } else {
+            if (pipeCount == pipes.length) {
+                pipes = Arrays.copyOf(pipes, pipeCount * 2);
+            }
+            index = pipeCount++;
+        }
+        pipes[index] = pipe;
+        return index;
+    }
+
+    /**
+     * Slots are only marked dead here and compacted at the end of the pass, so
+     * removing items from inside a callback is safe.
+     */
+    private void remove(TravellingItem item) {
+        int slot = item.tickerSlot;
+        if (slot < 0) {
+            return;
+        }
+        item.progress = progress[slot] / (float) ONE;
+        owner[slot] = REMOVED;
+        items[slot] = null;
+        item.tickerSlot = -1;
+        removedCount++;
+    }
+
+    void tick() {
+        // Items added during the pass start moving next tick
+        int count = itemCount;
+        for (int i = 0; i < count; i++) {
+            int pipeIndex = owner[i];
+            if (pipeIndex == REMOVED) {
+                continue;
+            }
+            if (wait[i] > 0) {
+                wait[i]--;
+                continue;
+            }
+
+            if (direction[i] == NO_DIRECTION && progress[i] >= HALF) {
+                TravellingItem item = items[i];
+                item.progress = progress[i] / (float) ONE;
+                pipes[pipeIndex].onItemAtCenter(item);
+                if (!readBack(item, i)) {
+                    continue;
+                }
+            }
+
+            progress[i] += step[i];
+            if (progress[i] >= end[i]) {
+                TravellingItem item = items[i];
+                item.progress = progress[i] / (float) ONE;
+                pipes[pipeIndex].onItemAtEnd(item);
+                readBack(item, i);
+            }
+        }
+
+        if (removedCount > 0) {
+            compact();
+        }
+
+        for (TileItemPipe pipe : flushQueue) {
+            if (!pipe.isInvalid()) {
+                pipe.flushItemEvents();
+            }
+        }
+        flushQueue.clear();
+    }
+
+    /**
+     * Copy back what a callback changed.
+     *
+     * @return false if the item left the pipe
+     */
+    private boolean readBack(TravellingItem item, int slot) {
+        if (item.tickerSlot != slot) {
+            return false;
+        }
+        progress[slot] = Math.round(item.progress * ONE);
+        direction[slot] = toByte(item.direction);
+        end[slot] = endOf(item);
+        wait[slot] = item.stallTicks;
+        item.stallTicks = 0;
+        return true;
+    }
+
+    private void compact() {
+        int live = 0;
+        for (int i = 0; i < itemCount; i++) {
+            if (owner[i] == REMOVED) {
+                continue;
+            }
+            if (i != live) {
+                progress[live] = progress[i];
+                step[live] = step[i];
+                end[live] = end[i];
+                direction[live] = direction[i];
+                wait[live] = wait[i];
+                owner[live] = owner[i];
+                items[live] = items[i];
+                items[live].tickerSlot = live;
+            }
+            live++;
+        }
+        Arrays.fill(items, live, itemCount, null);
+        itemCount = live;
+        removedCount = 0;
+    }
+
+    private static int endOf(TravellingItem item) {
+        return Math.max(1, item.express) * ONE;
+    }
+
+    private static byte toByte(@Nullable EnumFacing face) {
+        return face == null ? NO_DIRECTION : (byte) face.getIndex();
+    }
+}
@@ -0,0 +1,522 @@
+package com.antigravity.advancedsorter.pipes;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraftforge.items.CapabilityItemHandler;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A connected component of item pipes.
+ * Owns the pipe graph and keeps a routing table per node (which faces lead to
+ * inventories, directly or through other pipes) so junctions can pick an
+ * output without querying the world.
+ *
+ * Networks are built lazily by flood fill the first time a pipe needs a
+ * route. Edits only touch the affected component: a changed pipe-to-pipe edge
+ * dissolves the network (it is rebuilt on the next lookup), a changed
+ * inventory neighbor only marks the routing tables for recalculation.
+ *
+ * Straight runs of plain pipes (two opposite pipe connections, no inventory,
+ * same speed) are express runs: an item entering one travels to the end in a
+ * single move of the first pipe, without per-pipe hand-overs (see
+ * {@link Node#getExpressLength}).
+ */
+public class PipeNetwork {
+
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    // Longest express run, keeps fixed point progress (PipeItemTicker) in range
+    public static final int MAX_EXPRESS_LENGTH = 256;
+
+    // Pipe masks of the three axes (DOWN|UP, NORTH|SOUTH, WEST|EAST)
+    private static final int[] AXIS_MASKS = { 0b000011, 0b001100, 0b110000 };
+
+    // Reused by findRoute (server thread only, never re-entered)
+    private static final Deque<Node> searchQueue = new ArrayDeque<>();
+    private static final byte[] NO_FACES = new byte[0];
+
+    private final List<Node> nodes = new ArrayList<>();
+    private boolean routesDirty = true;
+    private boolean dissolved = false;
+    private int routeVersion = 0; // Bumped on every routing table rebuild
+    private int searchMark = 0;
+
+    private PipeNetwork() {
+    }
+
+    /**
+     * Routing table entry for a single pipe.
+     */
+    public static class Node {
+        final TileItemPipe pipe;
+        final PipeNetwork network;
+        final Node[] neighbors = new Node[6];
+
+        // Face masks (bit = 1 << face.getIndex())
+        int pipeMask; // Connected faces leading to another pipe
+        int inventoryMask; // Connected faces leading to an inventory
+        int routeMask; // Pipe faces from which an inventory is reachable
+        int distance = UNREACHABLE; // Hops to the nearest inventory
+        int[] expressLength; // Per face, null unless part of a straight run
+
+        // Destination search state (see findRoute)
+        int searchMark;
+        Node searchParent;
+        byte searchFace;
+
+        Node(TileItemPipe pipe, PipeNetwork network) {
+            this.pipe = pipe;
+            this.network = network;
+        }
+
+        public int getPipeMask() {
+            return pipeMask;
+        }
+
+        public int getInventoryMask() {
+            return inventoryMask;
+        }
+
+        public int getOutputMask() {
+            return pipeMask | inventoryMask;
+        }
+
+        public int getRouteMask() {
+            return routeMask;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        /**
+         * Number of pipes an item leaving through a face passes without any
+         * decision, counting this one: the rest of the straight run in that
+         * direction. 0 if this pipe is not part of a straight run.
+         */
+        public int getExpressLength(EnumFacing face) {
+            return expressLength == null ? 0 : expressLength[face.getIndex()];
+        }
+
+        public PipeNetwork getNetwork() {
+            return network;
+        }
+    }
+
+    /**
+     * Path from a pipe to a destination, as the exit face to take in each pipe
+     * along the way. The last face leads into the destination inventory, or is
+     * left open if the destination is a sink pipe. Only valid while the
+     * routing tables it was found with are current.
+     */
+    public static class Route {
+        private final PipeNetwork network;
+        private final int version;
+        private final byte[] faces;
+        @Nullable
+        private final Node destination; // Null if the route has no destination
+
+        Route(PipeNetwork network, byte[] faces, @Nullable Node destination) {
+            this.network = network;
+            this.version = network.routeVersion;
+            this.faces = faces;
+            this.destination = destination;
+        }
+
+        public boolean isValid(Node node) {
+            return node.network == network && network.routeVersion == version;
+        }
+
+        /**
+         * Whether two routes (either may be null) end at the same destination
+         * of the same routing tables.
+         */
+        public static boolean sameTarget(@Nullable Route a, @Nullable Route b) {
+            if (a == b) {
+                return true;
+            }
+            if (a == null || b == null || a.network != b.network || a.version != b.version
+                    || a.destination != b.destination) {
+                return false;
+            }
+            return a.destination == null || a.faces[a.faces.length - 1] == b.faces[b.faces.length - 1];
+        }
+
+        /**
+         * Exit face in the pipe at the given hop, or null if the route has no
+         * face there (no destination, or past the end).
+         */
+        @Nullable
+        public EnumFacing getFace(int hop) {
+            if (hop >= faces.length || faces[hop] < 0) {
+                return null;
+            }
+            return EnumFacing.getFront(faces[hop]);
+        }
+
+        public int length() {
+            return faces.length;
+        }
+    }
+
+    public static int faceBit(EnumFacing face) {
+        return face == null ? 0 : 1 << face.getIndex();
+    }
+
+    /**
+     * Get the routing node of a pipe, building the network and its routing
+     * tables if they are missing or out of date.
+     */
+    public static Node nodeOf(TileItemPipe pipe) {
+        Node node = pipe.networkNode;
+        if (node == null || node.network.dissolved) {
+            build(pipe);
+            node = pipe.networkNode;
+        }
+        if (node.network.routesDirty) {
+            node.network.recalculateRoutes();
+        }
+        return node;
+    }
+
+    /**
+     * Called by a pipe after its connections changed (connection update or
+     * wrench toggle). Only the pipe's own component is affected.
+     */
+    public static void onConnectionsChanged(TileItemPipe pipe) {
+        Node node = pipe.networkNode;
+        if (node == null || node.network.dissolved) {
+            return; // Will be built on the next lookup
+        }
+
+        int oldPipeMask = node.pipeMask;
+        int oldInventoryMask = node.inventoryMask;
+        node.network.scanNeighbors(node);
+
+        if (node.pipeMask != oldPipeMask) {
+            // Graph edges changed - the component may have split or merged
+            node.network.dissolve();
+        } else if (node.inventoryMask != oldInventoryMask) {
+            node.network.routesDirty = true;
+        }
+    }
+
+    /**
+     * Called when a pipe changed which sides it routes through (side modes,
+     * teleport mode) without changing its connections.
+     */
+    public static void markRoutesDirty(TileItemPipe pipe) {
+        Node node = pipe.networkNode;
+        if (node != null) {
+            node.network.routesDirty = true;
+        }
+    }
+
+    /**
+     * Called when a pipe leaves the world (broken or chunk unloaded).
+     */
+    public static void onPipeRemoved(TileItemPipe pipe) {
+        Node node = pipe.networkNode;
+        if (node != null) {
+            node.network.dissolve();
+        }
+    }
+
+    /**
+     * Find the nearest destination that accepts an item, breadth-first from a
+     * pipe: an inventory next to a pipe (asked with a simulated insert), or a
+     * sink pipe unless the item was already teleported. Branches that can't
+     * reach any inventory are not walked.
+     *
+     * @param exclude face of the start pipe the item may not leave through
+     * @return the route to the destination, empty if nothing accepts the item
+     */
+    public static Route findRoute(TileItemPipe pipe, TravellingItem item, @Nullable EnumFacing exclude) {
+        return findRoute(pipe, item.stack, item.teleported, exclude);
+    }
+
+    /**
+     * Find the nearest destination for a stack that is not in a pipe yet.
+     *
+     * @see #findRoute(TileItemPipe, TravellingItem, EnumFacing)
+     */
+    public static Route findRoute(TileItemPipe pipe, ItemStack stack, boolean teleported,
+            @Nullable EnumFacing exclude) {
+        Node start = nodeOf(pipe);
+        PipeNetwork network = start.network;
+        int mark = ++network.searchMark;
+        start.searchMark = mark;
+        start.searchParent = null;
+
+        Deque<Node> queue = searchQueue;
+        queue.clear();
+        queue.add(start);
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            int excluded = node == start ? faceBit(exclude) : 0;
+
+            // The start pipe already had its chance to consume the item
+            if (node != start && !teleported && node.pipe.isRoutingSink()) {
+                return network.buildRoute(node, -1);
+            }
+
+            for (EnumFacing face : EnumFacing.VALUES) {
+                int bit = faceBit(face);
+                if ((node.inventoryMask & bit) == 0 || (excluded & bit) != 0 || !node.pipe.canRouteTo(face))
+                    continue;
+                if (node.pipe.insertIntoNeighbor(face, stack, true).getCount() < stack.getCount()) {
+                    return network.buildRoute(node, face.getIndex());
+                }
+            }
+
+            for (EnumFacing face : EnumFacing.VALUES) {
+                Node next = node.neighbors[face.getIndex()];
+                if (next == null || next.searchMark == mark || next.distance == UNREACHABLE
+                        || (excluded & faceBit(face)) != 0 || !canRoute(node, face, next))
+                    continue;
+                next.searchMark = mark;
+                next.searchParent = node;
+                next.searchFace = (byte) face.getIndex();
+                queue.add(next);
+            }
+        }
+        return new Route(network, NO_FACES, null);
+    }
+
+    private Route buildRoute(Node destination, int lastFace) {
+        searchQueue.clear(); // Don't keep nodes of old networks alive
+
+        int hops = 0;
+        for (Node node = destination; node.searchParent != null; node = node.searchParent) {
+            hops++;
+        }
+
+        byte[] faces = new byte[hops + 1];
+        faces[hops] = (byte) lastFace;
+        Node node = destination;
+        for (int i = hops - 1; i >= 0; i--) {
+            faces[i] = node.searchFace;
+            node = node.searchParent;
+        }
+        return new Route(this, faces, destination);
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public boolean isDissolved() {
+        return dissolved;
+    }
+
+    /**
+     * Bumped whenever the routing tables are rebuilt.
+     */
+    public int getRouteVersion() {
+        return routeVersion;
+    }
+
+    // ========== Graph building ==========
+
+    private static PipeNetwork build(TileItemPipe origin) {
+        PipeNetwork network = new PipeNetwork();
+        Deque<Node> queue = new ArrayDeque<>();
+        queue.add(network.join(origin));
+
+        while (!queue.isEmpty()) {
+            Node node = queue.poll();
+            network.scanNeighbors(node);
+
+            for (EnumFacing face : EnumFacing.VALUES) {
+                if ((node.pipeMask & faceBit(face)) == 0)
+                    continue;
+
+                TileItemPipe neighborPipe = (TileItemPipe) node.pipe.neighborCache.getTileEntity(face);
+                Node neighbor = neighborPipe.networkNode;
+                if (neighbor == null || neighbor.network != network) {
+                    neighbor = network.join(neighborPipe);
+                    queue.add(neighbor);
+                }
+                node.neighbors[face.getIndex()] = neighbor;
+            }
+        }
+
+        network.routesDirty = true;
+        return network;
+    }
+
+    private Node join(TileItemPipe pipe) {
+        Node previous = pipe.networkNode;
+        if (previous != null && previous.network != this && !previous.network.dissolved) {
+            // Pipe was part of another network that is now connected to us - merge
+            previous.network.dissolve();
+        }
+        Node node = new Node(pipe, this);
+        pipe.networkNode = node;
+        nodes.add(node);
+        return node;
+    }
+
+    /**
+     * Classify the connected faces of a node as pipe or inventory faces.
+     * This is the only place routing touches the world (through the pipe's
+     * neighbor cache).
+     */
+    private void scanNeighbors(Node node) {
+        TileItemPipe pipe = node.pipe;
+        int pipeMask = 0;
+        int inventoryMask = 0;
+
+        for (EnumFacing face : pipe.getConnections()) {
+            TileEntity neighbor = pipe.neighborCache.getTileEntity(face);
+            if (neighbor == null)
+                continue;
+
+            if (neighbor instanceof TileItemPipe) {
+                pipeMask |= faceBit(face);
+            } else if (pipe.neighborCache.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, face) != null) {
+                inventoryMask |= faceBit(face);
+            }
+        }
+
+        node.pipeMask = pipeMask;
+        node.inventoryMask = inventoryMask;
+    }
+
+    private void dissolve() {
+        if (dissolved)
+            return;
+        dissolved = true;
+        for (Node node : nodes) {
+            if (node.pipe.networkNode == node) {
+                node.pipe.networkNode = null;
+            }
+        }
+        nodes.clear();
+    }
+
+    // ========== Routing tables ==========
+
+    /**
+     * Multi-source BFS from every pipe that can deliver to an inventory,
+     * walking pipe edges backwards. Afterwards each node knows its distance to
+     * the nearest inventory and which pipe faces lead towards one.
+     */
+    private void recalculateRoutes() {
+        Deque<Node> queue = new ArrayDeque<>();
+
+        for (Node node : nodes) {
+            node.routeMask = 0;
+            node.distance = UNREACHABLE;
+            if (isSink(node)) {
+                node.distance = 0;
+                queue.add(node);
+            }
+        }
+
+        while (!queue.isEmpty()) {
+            Node target = queue.poll();
+            for (EnumFacing face : EnumFacing.VALUES) {
+                Node source = target.neighbors[face.getIndex()];
+                if (source == null || source.distance != UNREACHABLE)
+                    continue;
+                // 'source' sends towards 'target' through the opposite face
+                if (canRoute(source, face.getOpposite(), target)) {
+                    source.distance = target.distance + 1;
+                    queue.add(source);
+                }
+            }
+        }
+
+        for (Node node : nodes) {
+            for (EnumFacing face : EnumFacing.VALUES) {
+                Node neighbor = node.neighbors[face.getIndex()];
+                if (neighbor != null && neighbor.distance != UNREACHABLE && canRoute(node, face, neighbor)) {
+                    node.routeMask |= faceBit(face);
+                }
+            }
+        }
+
+        recalculateExpressRuns();
+
+        routesDirty = false;
+        routeVersion++; // Drops the routes items are carrying
+    }
+
+    /**
+     * Find the straight runs and give each of their pipes the remaining run
+     * length in both directions. Items already travelling a run check it
+     * again when they get to its end (TileItemPipe#finishExpress).
+     */
+    private void recalculateExpressRuns() {
+        for (Node node : nodes) {
+            node.expressLength = isStraight(node) ? new int[6] : null;
+        }
+
+        List<Node> run = new ArrayList<>();
+        for (Node node : nodes) {
+            if (node.expressLength == null)
+                continue;
+            for (EnumFacing face : EnumFacing.VALUES) {
+                if ((node.pipeMask & faceBit(face)) == 0)
+                    continue;
+                // Walk each run once, from the pipe it starts at
+                if (continuesRun(node.neighbors[face.getOpposite().getIndex()], node))
+                    continue;
+
+                run.clear();
+                Node current = node;
+                do {
+                    run.add(current);
+                    current = current.neighbors[face.getIndex()];
+                } while (continuesRun(run.get(run.size() - 1), current));
+
+                for (int i = 0; i < run.size(); i++) {
+                    run.get(i).expressLength[face.getIndex()] = Math.min(run.size() - i, MAX_EXPRESS_LENGTH);
+                }
+            }
+        }
+    }
+
+    private static boolean isStraight(Node node) {
+        if (!node.pipe.isPlainTransport() || node.inventoryMask != 0) {
+            return false;
+        }
+        for (int mask : AXIS_MASKS) {
+            if (node.pipeMask == mask) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether 'next' continues the straight run 'from' is part of.
+     */
+    private static boolean continuesRun(@Nullable Node from, @Nullable Node next) {
+        return from != null && next != null && from.expressLength != null && next.expressLength != null
+                && from.pipe.getSpeed() == next.pipe.getSpeed();
+    }
+
+    private static boolean isSink(Node node) {
+        if (node.pipe.isRoutingSink()) {
+            return true;
+        }
+        for (EnumFacing face : EnumFacing.VALUES) {
+            if ((node.inventoryMask & faceBit(face)) != 0 && node.pipe.canRouteTo(face)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean canRoute(Node from, EnumFacing face, Node to) {
+        return from.pipe.canRouteTo(face) && to.pipe.canReceiveItem(ItemStack.EMPTY, face.getOpposite());
+    }
+}
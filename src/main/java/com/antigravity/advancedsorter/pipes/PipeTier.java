@@ -2,23 +2,25 @@ package com.antigravity.advancedsorter.pipes;
 
 /**
  * Enum representing the different tiers of pipes.
- * Each tier has different speed (for transport) and throughput (for
- * extraction).
+ * Each tier has different speed (for transport), throughput (for
+ * extraction) and capacity (items a single pipe holds before it refuses more).
  */
 public enum PipeTier {
-    STONE("stone", 20.0f, 1), // Slow: 20 ticks/block, 1 item/tick
-    IRON("iron", 10.0f, 8), // Medium: 10 ticks/block, 8 items/tick
-    GOLD("gold", 5.0f, 32), // Fast: 5 ticks/block, 32 items/tick
-    DIAMOND("diamond", 2.0f, 64); // Ultra: 2 ticks/block, 64 items/tick (full stack)
+    STONE("stone", 20.0f, 1, 8), // Slow: 20 ticks/block, 1 item/tick, 8 stacks
+    IRON("iron", 10.0f, 8, 16), // Medium: 10 ticks/block, 8 items/tick, 16 stacks
+    GOLD("gold", 5.0f, 32, 24), // Fast: 5 ticks/block, 32 items/tick, 24 stacks
+    DIAMOND("diamond", 2.0f, 64, 32); // Ultra: 2 ticks/block, 64 items/tick (full stack), 32 stacks
 
     private final String name;
     private final float speed; // Ticks per block travel
     private final int extractAmount; // Items per extraction tick
+    private final int capacity; // Max travelling stacks per pipe
 
-    PipeTier(String name, float speed, int extractAmount) {
+    PipeTier(String name, float speed, int extractAmount, int capacity) {
         this.name = name;
         this.speed = speed;
         this.extractAmount = extractAmount;
+        this.capacity = capacity;
     }
 
     public String getName() {
@@ -32,4 +34,8 @@ public enum PipeTier {
     public int getExtractAmount() {
         return extractAmount;
     }
+
+    public int getCapacity() {
+        return capacity;
+    }
 }
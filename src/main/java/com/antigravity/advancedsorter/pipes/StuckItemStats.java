@@ -0,0 +1,71 @@
+package com.antigravity.advancedsorter.pipes;
+
+import com.antigravity.advancedsorter.AdvancedSorterMod;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Counts items taken out of pipes because they got stuck (see
+ * TileItemPipe#isExpired), per pipe, so admins can find the loops causing
+ * them with /stuckitems. Counts are kept until reset or the server stops.
+ */
+public class StuckItemStats {
+
+    public static class Entry {
+        public final int dimension;
+        public final BlockPos pos;
+        public int expired;
+        public long lastTick;
+
+        Entry(int dimension, BlockPos pos) {
+            this.dimension = dimension;
+            this.pos = pos;
+        }
+    }
+
+    private static final Map<Integer, Map<BlockPos, Entry>> entries = new HashMap<>();
+    private static long total = 0;
+
+    /**
+     * Record an item that expired in the pipe at pos.
+     */
+    public static void record(World world, BlockPos pos) {
+        int dimension = world.provider.getDimension();
+        Map<BlockPos, Entry> dimEntries = entries.computeIfAbsent(dimension, d -> new HashMap<>());
+        Entry entry = dimEntries.get(pos);
+        if (entry == null) {
+            entry = new Entry(dimension, pos.toImmutable());
+            dimEntries.put(entry.pos, entry);
+            AdvancedSorterMod.logger.warn("Stuck item removed from pipe at {} in dimension {}", pos, dimension);
+        }
+        entry.expired++;
+        entry.lastTick = world.getTotalWorldTime();
+        total++;
+    }
+
+    /**
+     * Pipes with the most expired items, most first.
+     */
+    public static List<Entry> getWorst(int count) {
+        List<Entry> all = new ArrayList<>();
+        for (Map<BlockPos, Entry> dimEntries : entries.values()) {
+            all.addAll(dimEntries.values());
+        }
+        all.sort((a, b) -> Integer.compare(b.expired, a.expired));
+        return all.size() > count ? all.subList(0, count) : all;
+    }
+
+    public static long getTotal() {
+        return total;
+    }
+
+    public static void reset() {
+        entries.clear();
+        total = 0;
+    }
+}
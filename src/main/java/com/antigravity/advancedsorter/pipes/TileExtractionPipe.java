@@ -1,10 +1,15 @@
 package com.antigravity.advancedsorter.pipes;
 
+import com.antigravity.advancedsorter.ModConfig;
 import net.minecraft.item.ItemStack;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
 import net.minecraftforge.items.CapabilityItemHandler;
 import net.minecraftforge.items.IItemHandler;
+import net.minecraftforge.items.ItemHandlerHelper;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
 
 /**
  * Extraction pipe - pulls items from adjacent inventories.
@@ -13,9 +18,33 @@ import net.minecraftforge.items.IItemHandler;
  */
 public class TileExtractionPipe extends TileItemPipe {
 
+    // Slots looked at per face and cycle, and how long an empty inventory is skipped
+    private static final int SCAN_BUDGET = 64;
+    private static final int IDLE_RECHECK_TICKS = 100;
+
+    // Item types remembered without demand, and for how long at most
+    private static final int NO_DEMAND_SIZE = 16;
+    private static final int NO_DEMAND_TICKS = 100;
+
     private int extractionCooldown = 0;
     private int extractionRate = 20; // Ticks between extraction attempts
 
+    // Per face: next slot to look at, slots in a row with nothing to extract,
+    // and when the face was found empty
+    private final int[] slotCursor = new int[6];
+    private final int[] emptySlotsSeen = new int[6];
+    private final int[] idleChangeCount = new int[6];
+    private final long[] idleUntil = new long[6];
+
+    // Item types no destination took, skipped without a search until the
+    // routing tables change or NO_DEMAND_TICKS pass (oldest replaced first)
+    private final ItemStack[] noDemand = new ItemStack[NO_DEMAND_SIZE];
+    private int noDemandCount = 0;
+    private int noDemandNext = 0;
+    private PipeNetwork noDemandNetwork;
+    private int noDemandVersion;
+    private long noDemandUntil;
+
     public TileExtractionPipe() {
         super(PipeTier.IRON); // Default to iron tier
     }
@@ -24,6 +53,11 @@ public class TileExtractionPipe extends TileItemPipe {
         super(tier);
     }
 
+    @Override
+    protected boolean isPlainTransport() {
+        return false;
+    }
+
     @Override
     public void update() {
         super.update();
@@ -41,49 +75,139 @@ public class TileExtractionPipe extends TileItemPipe {
 
     /**
      * Try to extract items from all connected inventories.
-     * Amount extracted depends on tier.
+     * Amount extracted depends on tier. Each face keeps a slot cursor, so
+     * extraction continues where the last cycle stopped instead of scanning
+     * from slot 0, and at most SCAN_BUDGET slots are looked at per cycle.
+     * Faces whose inventory had nothing to extract on a full pass are
+     * skipped until the inventory changes.
+     *
+     * Only items some destination in the network can take right now are
+     * extracted (demand check, see findDemand); everything else stays in the
+     * source inventory instead of looping through the pipes.
      */
     private void tryExtract() {
-        int maxExtract = tier.getExtractAmount(); // Get amount from tier (1/8/32/64)
+        if (isFull())
+            return; // Leave items in the inventory until the pipe drains
+
+        int remaining = tier.getExtractAmount(); // Get amount from tier (1/8/32/64)
+        boolean multiSlot = ModConfig.pipes.extractMultipleSlots;
+        checkNoDemand();
 
         for (EnumFacing face : connections) {
-            TileEntity neighbor = world.getTileEntity(pos.offset(face));
+            TileEntity neighbor = neighborCache.getTileEntity(face);
 
             // Skip other pipes
             if (neighbor instanceof TileItemPipe)
                 continue;
 
-            if (neighbor == null)
+            if (neighbor == null || isIdle(face))
                 continue;
 
             // Get item handler
-            IItemHandler handler = null;
-            EnumFacing into = face.getOpposite();
+            IItemHandler handler = neighborCache.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, face);
+            if (handler == null)
+                continue;
 
-            if (neighbor.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, into)) {
-                handler = neighbor.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, into);
-            } else if (neighbor.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, null)) {
-                handler = neighbor.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, null);
-            }
+            int slots = handler.getSlots();
+            if (slots == 0)
+                continue;
+
+            int index = face.getIndex();
+            int slot = slotCursor[index] % slots;
+            for (int n = Math.min(slots, SCAN_BUDGET); n > 0; n--) {
+                ItemStack available = handler.getStackInSlot(slot).isEmpty() ? ItemStack.EMPTY
+                        : handler.extractItem(slot, remaining, true);
+                PipeNetwork.Route route = null;
+                if (!available.isEmpty() && !hasNoDemand(available)) {
+                    route = findDemand(available, face);
+                    if (route == null) {
+                        addNoDemand(available);
+                    }
+                }
 
-            if (handler != null) {
-                // Try to extract from any slot
-                for (int slot = 0; slot < handler.getSlots(); slot++) {
-                    ItemStack inSlot = handler.getStackInSlot(slot);
-                    if (!inSlot.isEmpty()) {
-                        // Extract up to maxExtract items (tier-based)
-                        ItemStack extracted = handler.extractItem(slot, maxExtract, false);
-                        if (!extracted.isEmpty()) {
-                            // Send into pipe network (full stack travels together)
-                            receiveItem(extracted, face);
+                if (route != null) {
+                    // Extract up to the remaining amount (tier-based)
+                    ItemStack extracted = handler.extractItem(slot, available.getCount(), false);
+                    if (!extracted.isEmpty()) {
+                        emptySlotsSeen[index] = 0;
+                        slotCursor[index] = slot; // Come back until the slot is drained
+
+                        // Send into pipe network (full stack travels together),
+                        // already on its way to the destination that was found
+                        receiveItem(extracted, face, false, route, 0, null);
+                        remaining -= extracted.getCount();
+                        if (!multiSlot || remaining <= 0 || isFull())
                             return; // One extraction per cycle
-                        }
                     }
                 }
+
+                slot = (slot + 1) % slots;
+                if (++emptySlotsSeen[index] >= slots) {
+                    // Full pass without anything to extract
+                    idleChangeCount[index] = neighborCache.getChangeCount(face);
+                    idleUntil[index] = world.getTotalWorldTime() + IDLE_RECHECK_TICKS;
+                    emptySlotsSeen[index] = 0;
+                    break;
+                }
             }
+            slotCursor[index] = slot;
         }
     }
 
+    /**
+     * Route to the nearest destination that accepts the stack, or null if no
+     * destination reachable from this pipe has room for it. Never routes back
+     * into the source inventory.
+     */
+    @Nullable
+    private PipeNetwork.Route findDemand(ItemStack stack, EnumFacing source) {
+        PipeNetwork.Route route = PipeNetwork.findRoute(this, stack, false, source);
+        return route.getFace(0) != null ? route : null;
+    }
+
+    /**
+     * Forget the item types without demand if the routing tables changed or
+     * they are too old.
+     */
+    private void checkNoDemand() {
+        PipeNetwork network = PipeNetwork.nodeOf(this).network;
+        long now = world.getTotalWorldTime();
+        if (network != noDemandNetwork || network.getRouteVersion() != noDemandVersion || now >= noDemandUntil) {
+            Arrays.fill(noDemand, null);
+            noDemandCount = 0;
+            noDemandNext = 0;
+            noDemandNetwork = network;
+            noDemandVersion = network.getRouteVersion();
+            noDemandUntil = now + NO_DEMAND_TICKS;
+        }
+    }
+
+    private boolean hasNoDemand(ItemStack stack) {
+        for (int i = 0; i < noDemandCount; i++) {
+            if (ItemHandlerHelper.canItemStacksStack(noDemand[i], stack)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addNoDemand(ItemStack stack) {
+        noDemand[noDemandNext] = stack.copy();
+        noDemandNext = (noDemandNext + 1) % NO_DEMAND_SIZE;
+        noDemandCount = Math.min(noDemandCount + 1, NO_DEMAND_SIZE);
+    }
+
+    /**
+     * Whether the inventory on a face had nothing to extract and hasn't changed
+     * since. Vertical neighbors don't report changes, so the face is checked
+     * again after IDLE_RECHECK_TICKS anyway.
+     */
+    private boolean isIdle(EnumFacing face) {
+        int index = face.getIndex();
+        return idleUntil[index] > world.getTotalWorldTime()
+                && idleChangeCount[index] == neighborCache.getChangeCount(face);
+    }
+
     public void setExtractionRate(int rate) {
         this.extractionRate = Math.max(1, rate);
     }
@@ -1,17 +1,27 @@
 package com.antigravity.advancedsorter.pipes;
 
+import com.antigravity.advancedsorter.ModConfig;
+import com.antigravity.advancedsorter.network.PacketPipeItemEvents;
+import com.antigravity.advancedsorter.network.PipeItemClientCache;
+import com.antigravity.advancedsorter.network.PipeItemSync;
+import com.antigravity.advancedsorter.pipes.teleport.TileTeleportPipe;
+import com.antigravity.advancedsorter.util.NeighborCapabilityCache;
+import com.antigravity.advancedsorter.util.PipeConnectionQueue;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.ITickable;
-import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.world.WorldServer;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.items.CapabilityItemHandler;
 import net.minecraftforge.items.IItemHandler;
 import net.minecraftforge.items.ItemHandlerHelper;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
 import net.minecraft.item.ItemStack;
 import net.minecraft.network.NetworkManager;
 import net.minecraft.network.play.server.SPacketUpdateTileEntity;
@@ -23,7 +33,7 @@ import java.util.*;
  * Tile entity for item transport pipes.
  * Handles item movement, connections, and loop support.
  */
-public class TileItemPipe extends TileEntity implements ITickable {
+public class TileItemPipe extends TileEntity implements ITickable, PipeConnectionQueue.Pipe {
 
     // Pipe tier (determines speed)
     protected PipeTier tier = PipeTier.IRON; // Default to iron for backward compatibility
@@ -38,6 +48,21 @@ public class TileItemPipe extends TileEntity implements ITickable {
     // Items currently travelling through this pipe
     protected List<TravellingItem> travellingItems = new ArrayList<>();
 
+    // Ticks a stalled item waits at the end of the pipe before trying again
+    private static final int STALL_TICKS = 10;
+
+    // No new destination search before this tick after one found nothing
+    // (server only), so items waiting in a backed up pipe don't search each
+    private long nextRerouteTick = 0;
+
+    // Inventory sides tried after the side facing the pipe
+    private static final EnumFacing[] FALLBACK_INSERT_SIDES = {
+            EnumFacing.UP, // Furnace input is from top
+            null, // All slots
+            EnumFacing.DOWN,
+            EnumFacing.NORTH, EnumFacing.SOUTH, EnumFacing.EAST, EnumFacing.WEST
+    };
+
     // Speed: ticks per block (lower = faster) - now derived from tier
     protected float speed = 10.0f;
 
@@ -45,7 +70,34 @@ public class TileItemPipe extends TileEntity implements ITickable {
     protected int roundRobinIndex = 0;
 
     // Cached valid outputs (updated when connections change)
-    protected boolean connectionsDirty = true;
+    protected boolean connectionsDirty = false; // Loaded pipes resolve through PipeConnectionQueue
+
+    // Routing node in the pipe network (server only, rebuilt lazily)
+    PipeNetwork.Node networkNode;
+
+    // Neighbor tiles and their item handlers (invalidated by BlockItemPipe)
+    protected final NeighborCapabilityCache neighborCache = new NeighborCapabilityCache(this);
+
+    // Item sync: ids for new items and events waiting to be sent (server only)
+    protected int nextItemId = 0;
+    private final List<PacketPipeItemEvents.Event> pendingItemEvents = new ArrayList<>();
+    private final Map<Integer, ItemStack> pendingStacks = new HashMap<>();
+
+    // Cleared while building the update packet (items are synced by events)
+    private boolean writeItemsToNBT = true;
+
+    // Item types the inventory on a face refused recently (server only):
+    // stack id, expiry tick and the neighbor change count at the time
+    private static final int REFUSED_PER_FACE = 4;
+    private final int[] refusedKeys = new int[6 * REFUSED_PER_FACE];
+    private final long[] refusedUntil = new long[6 * REFUSED_PER_FACE];
+    private final int[] refusedChanges = new int[6 * REFUSED_PER_FACE];
+
+    // Slot in the world's PipeItemTicker pipe table (server only, -1 = none)
+    int tickerIndex = -1;
+
+    // Items of this pipe that are out on an express run (server only)
+    private int expressCount = 0;
 
     public TileItemPipe() {
         this(PipeTier.IRON);
@@ -64,147 +116,287 @@ public class TileItemPipe extends TileEntity implements ITickable {
     public void onLoad() {
         super.onLoad();
         if (world != null && !world.isRemote) {
-            // Update our connections
-            updateConnections();
+            // Our connections and our neighbors' are resolved next tick
+            PipeConnectionQueue.schedule(this);
 
-            // Notify all neighbor pipes to update their connections
-            for (EnumFacing face : EnumFacing.VALUES) {
-                BlockPos neighborPos = pos.offset(face);
-                TileEntity neighbor = world.getTileEntity(neighborPos);
-                if (neighbor instanceof TileItemPipe) {
-                    ((TileItemPipe) neighbor).updateConnections();
-                }
+            // Loaded items start moving again
+            for (TravellingItem item : travellingItems) {
+                PipeItemTicker.addItem(this, item);
             }
         }
     }
 
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        PipeNetwork.onPipeRemoved(this);
+        PipeItemTicker.onPipeRemoved(this);
+    }
+
+    @Override
+    public void onChunkUnload() {
+        super.onChunkUnload();
+        PipeNetwork.onPipeRemoved(this);
+        PipeItemTicker.onPipeRemoved(this);
+    }
+
     @Override
     public void update() {
         if (world == null)
             return;
 
-        // CLIENT SIDE: Interpolation only to smooth out movement between packets
+        // CLIENT SIDE: Simulate movement locally, server events correct it
         if (world.isRemote) {
             for (TravellingItem item : travellingItems) {
-                item.update(speed);
+                // Wait at the center until the server picks an exit, and at the end
+                // until the item leaves
+                float limit = item.direction == null ? 0.5f : Math.max(1, item.express);
+                if (item.progress < limit) {
+                    item.update(speed);
+                    if (item.progress > limit) {
+                        item.progress = limit;
+                    }
+                }
             }
             return;
         }
 
-        // SERVER SIDE
-        boolean stateChanged = false;
-
-        // Update connections if needed
+        // SERVER SIDE: items are moved by PipeItemTicker, only connection updates
+        // are left for the pipe's own tick
         if (connectionsDirty) {
             updateConnections();
             connectionsDirty = false;
         }
+    }
 
-        Iterator<TravellingItem> iterator = travellingItems.iterator();
-        while (iterator.hasNext()) {
-            TravellingItem item = iterator.next();
+    // ========== Item movement ==========
 
-            // Calculate direction at center if not set
-            if (item.direction == null && item.progress >= 0.5f) {
-                item.direction = chooseOutputDirection(item);
-                stateChanged = true; // Sync direction choice to client
-            }
+    /**
+     * Called by PipeItemTicker when an item without a direction reaches the
+     * center: hand it to consumeAtCenter or pick its exit face. Items follow
+     * their route; only items without a destination use round-robin.
+     */
+    void onItemAtCenter(TravellingItem item) {
+        if (isExpired(item)) {
+            removeTravellingItem(item);
+            StuckItemStats.record(world, pos);
+            disposeExpired(item);
+            return;
+        }
+        if (consumeAtCenter(item)) {
+            removeTravellingItem(item);
+            return;
+        }
+        item.direction = nextHop(item);
+        if (item.direction == null) {
+            item.direction = chooseOutputDirection(item);
+        }
+        if (item.direction != null && startExpress(item)) {
+            queueItemEvent(PacketPipeItemEvents.EXPRESS, item);
+        } else {
+            queueItemEvent(PacketPipeItemEvents.ROUTE, item);
+        }
+    }
 
-            // Update position
-            boolean reachedEnd = item.update(speed);
-
-            if (reachedEnd) {
-                // Item reached end of pipe
-                if (item.direction != null) {
-                    boolean transferred = transferToNeighbor(item);
-
-                    if (transferred) {
-                        iterator.remove();
-                        stateChanged = true; // Item removed, sync needed
-                    } else {
-                        // Failed to transfer - item enters loop mode
-                        EnumFacing oldDir = item.direction;
-                        item.direction = chooseOutputDirectionExcluding(item, oldDir);
-                        item.progress = 0.0f;
-                        item.source = oldDir.getOpposite();
-
-                        stateChanged = true; // Sync bounce/retry
-
-                        if (item.direction == null) {
-                            // No valid direction - bounce back instead of dropping
-                            item.direction = item.source;
-                            item.source = oldDir;
-                            // If still no direction (single ended pipe), just wait
-                            if (item.direction == null) {
-                                item.progress = 0.0f; // Reset and wait
-                            }
-                        }
-                    }
-                } else {
-                    // No valid direction at center - try again next tick
-                    item.progress = 0.0f;
-                    stateChanged = true; // Sync reset
-                }
-            }
+    // ========== Express runs ==========
+
+    /**
+     * Send an item through the whole straight run ahead in one go. The item
+     * stays in this pipe and moves the run's length at this pipe's speed, so
+     * the pipes in between do no work for it.
+     * The run holds as many items as its pipes together would.
+     *
+     * @return true if the item is on an express run now
+     */
+    private boolean startExpress(TravellingItem item) {
+        int length = PipeNetwork.nodeOf(this).getExpressLength(item.direction);
+        if (length < 2 || expressCount >= tier.getCapacity() * (length - 1)) {
+            return false;
         }
+        item.express = length;
+        expressCount++;
+        return true;
+    }
 
-        // Only sync if state explicitly changed (item entered/left/turned/bounced)
-        // This drastically reduces packet spam compared to syncing every tick
-        if (stateChanged) {
-            markDirty();
-            sendUpdate();
+    /**
+     * Called when an item reaches the end of its express run. Hands it to the
+     * pipe after the run. If that pipe refuses it, or the run got shorter
+     * since the item started (edits, unloaded chunks), the item continues as
+     * a normal item at the end of the last pipe of the run it got to.
+     *
+     * @return false if the run is gone and the item is a normal item in this
+     *         pipe again
+     */
+    private boolean finishExpress(TravellingItem item) {
+        EnumFacing face = item.direction;
+        PipeNetwork.Node node = PipeNetwork.nodeOf(this);
+        int reached = 1;
+        while (reached < item.express && node.getExpressLength(face) > 1) {
+            node = node.neighbors[face.getIndex()];
+            reached++;
+        }
+
+        boolean complete = reached == item.express;
+        item.express = 0;
+        expressCount--;
+        if (reached == 1) {
+            return false;
         }
+
+        // Continue as if the item had gone pipe by pipe
+        TileItemPipe last = node.pipe;
+        item.routeHop += reached - 1;
+        item.hops += reached - 1;
+        if (complete && last.transferToNeighbor(item)) {
+            removeTravellingItem(item);
+            return true;
+        }
+
+        removeTravellingItem(item);
+        last.adoptItem(item);
+        return true;
     }
 
-    private boolean reachedEndAny = false; // Deprecated, kept for structure but unused in new logic
+    /**
+     * Take over an item at the end of this pipe from an express run that
+     * couldn't deliver it. It tries to leave through its direction next tick.
+     */
+    private void adoptItem(TravellingItem item) {
+        item.source = item.direction.getOpposite();
+        item.progress = 1.0f - 1.0f / speed;
+        item.id = nextItemId++;
+        travellingItems.add(item);
+        PipeItemTicker.addItem(this, item);
+        queueItemEvent(PacketPipeItemEvents.ENTER, item);
+    }
 
     /**
-     * Choose output direction for an item using BuildCraft-style round-robin.
-     * Prioritizes inventory outputs over pipe outputs.
-     * Excludes source direction to prevent backtracking.
+     * Exit face from the item's route. Items entering the network, and items
+     * whose route went stale because the network changed, look up a new
+     * destination first.
      */
-    protected EnumFacing chooseOutputDirection(TravellingItem item) {
-        List<EnumFacing> inventoryOutputs = new ArrayList<>();
-        List<EnumFacing> pipeOutputs = new ArrayList<>();
+    @Nullable
+    protected EnumFacing nextHop(TravellingItem item) {
+        if (item.route == null || !item.route.isValid(PipeNetwork.nodeOf(this))) {
+            item.route = PipeNetwork.findRoute(this, item, item.source);
+            item.routeHop = 0;
+        }
+        return item.route.getFace(item.routeHop);
+    }
 
-        for (EnumFacing face : connections) {
-            // Exclude source (no backtracking)
-            if (face == item.source)
-                continue;
+    /**
+     * Called by PipeItemTicker when an item reaches the end of the pipe.
+     * Hands it to the neighbor, or loops it back into the pipe.
+     */
+    void onItemAtEnd(TravellingItem item) {
+        if (item.direction == null) {
+            // No valid direction at center - try again
+            item.progress = 0.0f;
+            queueItemEvent(PacketPipeItemEvents.MOVE, item);
+            return;
+        }
 
-            // Check if neighbor can receive
-            if (canOutputTo(face)) {
-                BlockPos neighborPos = pos.offset(face);
-                TileEntity neighbor = world.getTileEntity(neighborPos);
+        if (item.express > 1 && finishExpress(item)) {
+            return;
+        }
 
-                // Separate inventories from pipes (prioritize inventories)
-                if (neighbor instanceof TileItemPipe) {
-                    pipeOutputs.add(face);
-                } else {
-                    inventoryOutputs.add(face);
-                }
+        if (transferToNeighbor(item)) {
+            removeTravellingItem(item);
+            return;
+        }
+
+        // Destination refused the item - pick a new one from here. If nothing
+        // accepts it, the item waits at the end and blocks the pipe until the
+        // destination has room (backpressure) instead of looping. The pipe
+        // searches at most once per stall period, not once per waiting item.
+        EnumFacing oldDir = item.direction;
+        long now = world.getTotalWorldTime();
+        PipeNetwork.Route route = now < nextRerouteTick ? null : PipeNetwork.findRoute(this, item, oldDir);
+        if (route == null || route.getFace(0) == null) {
+            if (route != null) {
+                nextRerouteTick = now + STALL_TICKS;
             }
+            item.progress = 1.0f;
+            item.stallTicks = STALL_TICKS;
+            item.born += STALL_TICKS; // Waiting doesn't age the item
+            return;
         }
 
-        // Prioritize inventory outputs over pipe outputs
-        List<EnumFacing> validOutputs = inventoryOutputs.isEmpty() ? pipeOutputs : inventoryOutputs;
+        item.progress = 0.0f;
+        item.hops++;
+        item.source = oldDir.getOpposite();
+        item.route = route;
+        item.routeHop = 0;
+        item.direction = route.getFace(0);
 
-        if (validOutputs.isEmpty()) {
-            return null;
+        if (mergeIntoOthers(item)) {
+            // Rerouted into a group of identical items - travel as one
+            removeTravellingItem(item);
+        } else {
+            queueItemEvent(PacketPipeItemEvents.MOVE, item);
         }
+    }
 
-        // Single output - no need for round-robin
-        if (validOutputs.size() == 1) {
-            return validOutputs.get(0);
+    // ========== Stuck items ==========
+
+    /**
+     * An item is stuck when it went through too many pipes or travelled too
+     * long without reaching a destination (e.g. circling a loop).
+     */
+    protected boolean isExpired(TravellingItem item) {
+        int maxHops = ModConfig.pipes.itemMaxHops;
+        int maxAge = ModConfig.pipes.itemMaxAgeTicks;
+        if (item.born < 0) {
+            item.born = world.getTotalWorldTime();
+        }
+        return (maxHops > 0 && item.hops > maxHops)
+                || (maxAge > 0 && world.getTotalWorldTime() - item.born > maxAge);
+    }
+
+    /**
+     * Get rid of a stuck item that was already taken out of the pipe.
+     */
+    private void disposeExpired(TravellingItem item) {
+        switch (ModConfig.pipes.expiredItems) {
+            case OVERFLOW:
+                if (TileTeleportPipe.sendToFrequency(world, ModConfig.pipes.overflowFrequency, item.stack, null,
+                        null)) {
+                    break;
+                }
+                // No overflow receiver with room - drop it
+            case DROP:
+                dropItem(item);
+                break;
+            case VOID:
+                break;
+        }
+    }
+
+    private void removeTravellingItem(TravellingItem item) {
+        if (item.express > 1) {
+            expressCount--;
         }
+        travellingItems.remove(item);
+        PipeItemTicker.removeItem(this, item);
+        queueItemEvent(PacketPipeItemEvents.LEAVE, item);
+    }
 
-        // Round-robin: cycle through outputs in order
-        roundRobinIndex = roundRobinIndex % validOutputs.size();
-        EnumFacing selected = validOutputs.get(roundRobinIndex);
-        roundRobinIndex = (roundRobinIndex + 1) % validOutputs.size();
+    /**
+     * Called when an item without a direction reaches the center.
+     * Return true if the pipe took the item out of the pipe (e.g. teleported it).
+     */
+    protected boolean consumeAtCenter(TravellingItem item) {
+        return false;
+    }
 
-        markDirty(); // Save round-robin state
-        return selected;
+    /**
+     * Choose output direction for an item using BuildCraft-style round-robin.
+     * Prioritizes inventory outputs, then pipes that lead to an inventory, then
+     * any other pipe. Excludes source direction to prevent backtracking.
+     * Uses the network routing table - no world queries.
+     */
+    protected EnumFacing chooseOutputDirection(TravellingItem item) {
+        return chooseOutputDirectionExcluding(item, null);
     }
 
     /**
@@ -212,77 +404,83 @@ public class TileItemPipe extends TileEntity implements ITickable {
      * Uses round-robin like the main method.
      */
     protected EnumFacing chooseOutputDirectionExcluding(TravellingItem item, EnumFacing exclude) {
-        List<EnumFacing> inventoryOutputs = new ArrayList<>();
-        List<EnumFacing> pipeOutputs = new ArrayList<>();
+        PipeNetwork.Node node = PipeNetwork.nodeOf(this);
+        int candidates = node.getOutputMask() & ~PipeNetwork.faceBit(item.source) & ~PipeNetwork.faceBit(exclude);
 
-        for (EnumFacing face : connections) {
-            if (face == item.source || face == exclude)
-                continue;
-            if (canOutputTo(face)) {
-                BlockPos neighborPos = pos.offset(face);
-                TileEntity neighbor = world.getTileEntity(neighborPos);
-
-                if (neighbor instanceof TileItemPipe) {
-                    pipeOutputs.add(face);
-                } else {
-                    inventoryOutputs.add(face);
-                }
-            }
+        int validOutputs = candidates & node.getInventoryMask();
+        if (validOutputs == 0) {
+            validOutputs = candidates & node.getRouteMask();
         }
+        if (validOutputs == 0) {
+            validOutputs = candidates;
+        }
+        return selectRoundRobin(validOutputs);
+    }
 
-        List<EnumFacing> validOutputs = inventoryOutputs.isEmpty() ? pipeOutputs : inventoryOutputs;
-
-        if (validOutputs.isEmpty()) {
+    /**
+     * Pick one face out of a face mask, cycling through the set faces in index
+     * order.
+     */
+    protected EnumFacing selectRoundRobin(int faceMask) {
+        int count = Integer.bitCount(faceMask);
+        if (count == 0) {
             return null;
         }
 
-        if (validOutputs.size() == 1) {
-            return validOutputs.get(0);
+        // Single output - no need for round-robin
+        if (count == 1) {
+            return EnumFacing.getFront(Integer.numberOfTrailingZeros(faceMask));
         }
 
-        // Round-robin for retry as well
-        roundRobinIndex = roundRobinIndex % validOutputs.size();
-        EnumFacing selected = validOutputs.get(roundRobinIndex);
-        roundRobinIndex = (roundRobinIndex + 1) % validOutputs.size();
+        roundRobinIndex = roundRobinIndex % count;
+        int skip = roundRobinIndex;
+        roundRobinIndex = (roundRobinIndex + 1) % count;
 
-        return selected;
+        int remaining = faceMask;
+        for (int i = 0; i < skip; i++) {
+            remaining &= remaining - 1; // Clear lowest set bit
+        }
+        return EnumFacing.getFront(Integer.numberOfTrailingZeros(remaining));
     }
 
     /**
-     * Check if we can output to a face.
+     * Check if we can output to a face (connected pipe or inventory).
      */
     protected boolean canOutputTo(EnumFacing face) {
-        BlockPos neighborPos = pos.offset(face);
-        TileEntity neighbor = world.getTileEntity(neighborPos);
-
-        if (neighbor == null)
-            return false;
-
-        // Can output to other pipes
-        if (neighbor instanceof TileItemPipe) {
-            return true;
-        }
+        return (PipeNetwork.nodeOf(this).getOutputMask() & PipeNetwork.faceBit(face)) != 0;
+    }
 
-        // Can output to inventories
-        EnumFacing into = face.getOpposite();
-        if (neighbor.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, into)) {
-            return true;
-        }
-        if (neighbor.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, null)) {
-            return true;
-        }
+    /**
+     * Whether items routed out of this face can continue towards a destination.
+     * Used when building routing tables. Override for one-way sides.
+     */
+    protected boolean canRouteTo(EnumFacing face) {
+        return true;
+    }
 
+    /**
+     * Whether this pipe consumes items itself (e.g. by teleporting them), so it
+     * counts as a destination in the routing tables.
+     */
+    protected boolean isRoutingSink() {
         return false;
     }
 
+    /**
+     * Whether this pipe only carries items along, so it can be part of an
+     * express run. Pipes that act on items passing them return false.
+     */
+    protected boolean isPlainTransport() {
+        return true;
+    }
+
     /**
      * Transfer item to neighbor pipe or inventory.
      * 
      * @return true if transfer successful
      */
     protected boolean transferToNeighbor(TravellingItem item) {
-        BlockPos neighborPos = pos.offset(item.direction);
-        TileEntity neighbor = world.getTileEntity(neighborPos);
+        TileEntity neighbor = neighborCache.getTileEntity(item.direction);
 
         if (neighbor == null) {
             return false;
@@ -295,50 +493,106 @@ public class TileItemPipe extends TileEntity implements ITickable {
             EnumFacing fromDirection = item.direction.getOpposite();
 
             // Check if neighbor pipe will accept the item
-            if (!pipe.canReceiveItem(item.stack, fromDirection)) {
+            if (pipe.isFull() || !pipe.canReceiveItem(item.stack, fromDirection)) {
                 return false; // Item stays in this pipe
             }
 
-            pipe.receiveItem(item.stack, fromDirection);
+            pipe.receiveItem(item.stack, fromDirection, false, item.route, item.routeHop + 1, item);
             return true;
         }
 
-        // Transfer to inventory - try multiple faces for sided inventories (like
-        // furnaces)
-        EnumFacing primaryFace = item.direction.getOpposite();
+        ItemStack remaining = insertIntoNeighbor(item.direction, item.stack, false);
+        if (remaining.isEmpty()) {
+            return true;
+        } else if (remaining.getCount() < item.stack.getCount()) {
+            item.stack = remaining;
+            queueItemEvent(PacketPipeItemEvents.STACK, item);
+        }
+        return false;
+    }
 
-        // Priority order: primary face, UP (for furnace input), null (all slots), then
-        // other faces
-        EnumFacing[] facesToTry = new EnumFacing[] {
-                primaryFace,
-                EnumFacing.UP, // Furnace input is from top
-                null, // All slots
-                EnumFacing.DOWN,
-                EnumFacing.NORTH, EnumFacing.SOUTH, EnumFacing.EAST, EnumFacing.WEST
-        };
+    /**
+     * Insert a stack into the inventory on a face. Tries multiple sides of the
+     * inventory for sided inventories (like furnaces) and stops at the first
+     * one that takes anything. Also used simulated to pick destinations.
+     * Item types the inventory refused recently are not tried again until it
+     * changes or the refusal expires.
+     *
+     * @return the part of the stack that was not inserted
+     */
+    protected ItemStack insertIntoNeighbor(EnumFacing direction, ItemStack stack, boolean simulate) {
+        int key = PipeItemSync.stackId(stack);
+        if (isRefused(direction, key)) {
+            return stack;
+        }
 
-        for (EnumFacing face : facesToTry) {
-            // Skip primary face if we've already tried it (it's first in list)
-            if (face == primaryFace && face != facesToTry[0])
+        EnumFacing primaryFace = direction.getOpposite();
+        ItemStack remaining = insertIntoSide(direction, primaryFace, stack, simulate);
+        if (remaining.getCount() < stack.getCount()) {
+            return remaining;
+        }
+        for (EnumFacing side : FALLBACK_INSERT_SIDES) {
+            if (side == primaryFace)
                 continue;
-
-            if (neighbor.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, face)) {
-                IItemHandler handler = neighbor.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, face);
-                if (handler != null && handler.getSlots() > 0) {
-                    ItemStack remaining = ItemHandlerHelper.insertItem(handler, item.stack, false);
-                    if (remaining.isEmpty()) {
-                        return true;
-                    } else if (remaining.getCount() < item.stack.getCount()) {
-                        item.stack = remaining;
-                        return false;
-                    }
-                }
+            remaining = insertIntoSide(direction, side, stack, simulate);
+            if (remaining.getCount() < stack.getCount()) {
+                return remaining;
             }
         }
 
+        rememberRefused(direction, key);
+        return stack;
+    }
+
+    private ItemStack insertIntoSide(EnumFacing direction, @Nullable EnumFacing side, ItemStack stack,
+            boolean simulate) {
+        IItemHandler handler = neighborCache.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, direction,
+                side);
+        if (handler == null || handler.getSlots() == 0) {
+            return stack;
+        }
+        return ItemHandlerHelper.insertItem(handler, stack, simulate);
+    }
+
+    private boolean isRefused(EnumFacing face, int key) {
+        long now = world.getTotalWorldTime();
+        int changes = neighborCache.getChangeCount(face);
+        int start = face.getIndex() * REFUSED_PER_FACE;
+        for (int i = start; i < start + REFUSED_PER_FACE; i++) {
+            if (refusedKeys[i] == key && refusedUntil[i] > now && refusedChanges[i] == changes) {
+                return true;
+            }
+        }
         return false;
     }
 
+    private void rememberRefused(EnumFacing face, int key) {
+        int ttl = ModConfig.pipes.refusedInsertTicks;
+        if (ttl <= 0)
+            return;
+
+        // Reuse the entry that expires first
+        int start = face.getIndex() * REFUSED_PER_FACE;
+        int slot = start;
+        for (int i = start + 1; i < start + REFUSED_PER_FACE; i++) {
+            if (refusedUntil[i] < refusedUntil[slot]) {
+                slot = i;
+            }
+        }
+        refusedKeys[slot] = key;
+        refusedUntil[slot] = world.getTotalWorldTime() + ttl;
+        refusedChanges[slot] = neighborCache.getChangeCount(face);
+    }
+
+    /**
+     * Whether the pipe holds as many items as its tier allows. Full pipes
+     * refuse items from neighbors, inventories and extraction.
+     */
+    public boolean isFull() {
+        // Items on an express run are out in the run, not in this pipe
+        return travellingItems.size() - expressCount >= tier.getCapacity();
+    }
+
     /**
      * Check if this pipe can receive an item from the given direction.
      * Override in subclasses to add restrictions (e.g., DirectionalPipe INPUT
@@ -353,13 +607,208 @@ public class TileItemPipe extends TileEntity implements ITickable {
     }
 
     public void receiveItem(ItemStack stack, EnumFacing from, boolean teleported) {
+        receiveItem(stack, from, teleported, null, 0, null);
+    }
+
+    /**
+     * Receive an item that may already carry a route (from the sending pipe).
+     * The pipe takes ownership of the stack - callers pass a stack nobody
+     * else holds on to (a copy, an extracted stack, or the stack of an item
+     * that is leaving its pipe).
+     *
+     * @param routeHop index of this pipe in the route
+     * @param previous item the stack comes from, to carry its hop count and age
+     *                 over, or null to start fresh
+     * @return the new item, or null if the stack joined items already in the pipe
+     */
+    @Nullable
+    protected TravellingItem receiveItem(ItemStack stack, EnumFacing from, boolean teleported,
+            @Nullable PipeNetwork.Route route, int routeHop, @Nullable TravellingItem previous) {
         if (stack.isEmpty())
-            return;
-        TravellingItem item = new TravellingItem(stack.copy(), from);
+            return null;
+
+        int hops = previous != null ? previous.hops + 1 : 0;
+        long born = previous != null ? previous.born : world != null ? world.getTotalWorldTime() : 0;
+
+        // Ride along with an identical item that just entered from the same side.
+        // Checked before the item is created, so a merged stack allocates nothing.
+        if (coalesce(stack, from, null, 0.0f, teleported, route, hops, born, null).isEmpty()) {
+            return null;
+        }
+
+        TravellingItem item = new TravellingItem(stack, from);
         item.teleported = teleported;
+        item.route = route;
+        item.routeHop = routeHop;
+        item.hops = hops;
+        item.born = born;
+        item.id = nextItemId++;
         travellingItems.add(item);
+        PipeItemTicker.addItem(this, item);
+        queueItemEvent(PacketPipeItemEvents.ENTER, item);
+        return item;
+    }
+
+    // ========== Coalescing ==========
+
+    /**
+     * Merge a stack into items travelling the same segment: same source,
+     * direction, teleport flag and route destination, progress within the
+     * configured window. Merged items never exceed the max stack size and
+     * keep the highest hop count and oldest age of their parts. If a
+     * destination later accepts only part of a merged item, the remainder
+     * stays in that item. The stack is shrunk in place.
+     *
+     * @param except item the stack belongs to, if it is already in the pipe
+     * @return the part of the stack that could not be merged
+     */
+    protected ItemStack coalesce(ItemStack stack, EnumFacing source, @Nullable EnumFacing direction,
+            float progress, boolean teleported, @Nullable PipeNetwork.Route route, int hops, long born,
+            @Nullable TravellingItem except) {
+        if (!ModConfig.pipes.coalesceItems)
+            return stack;
+
+        PipeItemTicker.syncProgress(this, except);
+        float window = (float) ModConfig.pipes.coalesceWindow;
+        for (int i = 0; i < travellingItems.size(); i++) { // Indexed: no iterator per received stack
+            TravellingItem other = travellingItems.get(i);
+            if (other == except || other.source != source || other.direction != direction
+                    || other.teleported != teleported || other.express != 0)
+                continue;
+            if (Math.abs(other.progress - progress) > window
+                    || !PipeNetwork.Route.sameTarget(other.route, route))
+                continue;
+
+            int space = other.stack.getMaxStackSize() - other.stack.getCount();
+            if (space <= 0 || !ItemHandlerHelper.canItemStacksStack(other.stack, stack))
+                continue;
+
+            int moved = Math.min(space, stack.getCount());
+            other.stack.grow(moved);
+            other.hops = Math.max(other.hops, hops);
+            other.born = Math.min(other.born, born);
+            queueItemEvent(PacketPipeItemEvents.STACK, other);
+            if (moved == stack.getCount()) {
+                return ItemStack.EMPTY;
+            }
+            stack.shrink(moved);
+        }
+        return stack;
+    }
+
+    /**
+     * Merge an item into the others in this pipe.
+     *
+     * @return true if the whole item was merged and should be removed
+     */
+    private boolean mergeIntoOthers(TravellingItem item) {
+        int count = item.stack.getCount();
+        ItemStack rest = coalesce(item.stack, item.source, item.direction, item.progress, item.teleported,
+                item.route, item.hops, item.born, item);
+        if (rest.isEmpty()) {
+            return true;
+        }
+        if (rest.getCount() != count) {
+            queueItemEvent(PacketPipeItemEvents.STACK, item);
+        }
+        return false;
+    }
+
+    // ========== Item sync ==========
+
+    /**
+     * Queue an item event for clients. Sent at the end of the world tick.
+     */
+    protected void queueItemEvent(byte type, TravellingItem item) {
+        if (world == null || world.isRemote)
+            return;
+
+        if (pendingItemEvents.isEmpty()) {
+            PipeItemTicker.requestFlush(this);
+        }
+        int stackId = 0;
+        if (type == PacketPipeItemEvents.ENTER || type == PacketPipeItemEvents.STACK) {
+            stackId = PipeItemSync.stackId(item.stack);
+            pendingStacks.put(stackId, item.stack);
+        }
+        int count = type == PacketPipeItemEvents.EXPRESS ? item.express : item.stack.getCount();
+        pendingItemEvents.add(new PacketPipeItemEvents.Event(type, item.id, item.source, item.direction,
+                (int) world.getTotalWorldTime(), stackId, count));
+    }
+
+    /**
+     * Send queued item events. Every item state change comes with an event, so
+     * this is also where the pipe is marked for saving.
+     */
+    protected void flushItemEvents() {
+        if (pendingItemEvents.isEmpty())
+            return;
         markDirty();
-        sendUpdate();
+        PipeItemSync.send((WorldServer) world, pos, pendingItemEvents, pendingStacks);
+        pendingItemEvents.clear();
+        pendingStacks.clear();
+    }
+
+    /**
+     * Apply an item event from the server (client only).
+     * Progress is advanced by the time since the event, so items stay in step
+     * with the server even if the packet arrives late.
+     */
+    public void handleItemEvent(PacketPipeItemEvents.Event event) {
+        float elapsed = Math.max(0, (int) world.getTotalWorldTime() - event.tick) / speed;
+        TravellingItem item = findTravellingItem(event.itemId);
+
+        switch (event.type) {
+            case PacketPipeItemEvents.ENTER:
+                if (item == null) {
+                    item = new TravellingItem(PipeItemClientCache.get(event.stackId, event.count), event.source);
+                    item.id = event.itemId;
+                    travellingItems.add(item);
+                }
+                item.direction = event.direction;
+                item.progress = Math.min(0.5f, elapsed);
+                break;
+            case PacketPipeItemEvents.ROUTE:
+                if (item != null) {
+                    item.direction = event.direction;
+                    item.progress = Math.min(1.0f, 0.5f + elapsed);
+                }
+                break;
+            case PacketPipeItemEvents.EXPRESS:
+                if (item != null) {
+                    item.direction = event.direction;
+                    item.express = event.count;
+                    item.progress = Math.min(event.count, 0.5f + elapsed);
+                }
+                break;
+            case PacketPipeItemEvents.MOVE:
+                if (item != null) {
+                    item.source = event.source;
+                    item.direction = event.direction;
+                    item.progress = Math.min(event.direction == null ? 0.5f : 1.0f, elapsed);
+                }
+                break;
+            case PacketPipeItemEvents.LEAVE:
+                if (item != null) {
+                    travellingItems.remove(item);
+                }
+                break;
+            case PacketPipeItemEvents.STACK:
+                if (item != null) {
+                    item.stack = PipeItemClientCache.get(event.stackId, event.count);
+                }
+                break;
+        }
+    }
+
+    @Nullable
+    private TravellingItem findTravellingItem(int id) {
+        for (TravellingItem item : travellingItems) {
+            if (item.id == id) {
+                return item;
+            }
+        }
+        return null;
     }
 
     /**
@@ -376,8 +825,11 @@ public class TileItemPipe extends TileEntity implements ITickable {
     /**
      * Update connections based on neighbors.
      * Respects blockedConnections - blocked sides will not auto-connect.
+     * Only saves and syncs if the connections changed.
      */
+    @Override
     public void updateConnections() {
+        EnumSet<EnumFacing> previous = EnumSet.copyOf(connections);
         connections.clear();
 
         for (EnumFacing face : EnumFacing.VALUES) {
@@ -388,8 +840,7 @@ public class TileItemPipe extends TileEntity implements ITickable {
 
             if (canConnectTo(face)) {
                 // Also check if neighbor has blocked us
-                BlockPos neighborPos = pos.offset(face);
-                TileEntity neighbor = world.getTileEntity(neighborPos);
+                TileEntity neighbor = neighborCache.getTileEntity(face);
                 if (neighbor instanceof TileItemPipe) {
                     TileItemPipe neighborPipe = (TileItemPipe) neighbor;
                     if (neighborPipe.blockedConnections.contains(face.getOpposite())) {
@@ -400,16 +851,23 @@ public class TileItemPipe extends TileEntity implements ITickable {
             }
         }
 
-        markDirty();
-        sendUpdate();
+        PipeNetwork.onConnectionsChanged(this);
+        if (!connections.equals(previous)) {
+            markDirty();
+            sendUpdate();
+        }
+    }
+
+    @Override
+    public boolean isConnectablePipe(TileEntity neighbor) {
+        return neighbor instanceof TileItemPipe;
     }
 
     /**
      * Check if we can connect to a neighbor on this face.
      */
     protected boolean canConnectTo(EnumFacing face) {
-        BlockPos neighborPos = pos.offset(face);
-        TileEntity neighbor = world.getTileEntity(neighborPos);
+        TileEntity neighbor = neighborCache.getTileEntity(face);
 
         if (neighbor == null)
             return false;
@@ -420,14 +878,7 @@ public class TileItemPipe extends TileEntity implements ITickable {
         }
 
         // Connect to inventories
-        if (neighbor.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, face.getOpposite())) {
-            return true;
-        }
-        if (neighbor.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, null)) {
-            return true;
-        }
-
-        return false;
+        return neighborCache.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, face) != null;
     }
 
     /**
@@ -436,8 +887,7 @@ public class TileItemPipe extends TileEntity implements ITickable {
      * Reconnecting unblocks and re-establishes connection.
      */
     public void toggleConnection(EnumFacing face) {
-        BlockPos neighborPos = pos.offset(face);
-        TileEntity neighbor = world.getTileEntity(neighborPos);
+        TileEntity neighbor = neighborCache.getTileEntity(face);
         TileItemPipe neighborPipe = (neighbor instanceof TileItemPipe) ? (TileItemPipe) neighbor : null;
 
         if (connections.contains(face)) {
@@ -470,9 +920,12 @@ public class TileItemPipe extends TileEntity implements ITickable {
                     neighborPipe.sendUpdate();
                 }
             }
-        } else {
         }
 
+        PipeNetwork.onConnectionsChanged(this);
+        if (neighborPipe != null) {
+            PipeNetwork.onConnectionsChanged(neighborPipe);
+        }
         markDirty();
         sendUpdate();
     }
@@ -507,6 +960,33 @@ public class TileItemPipe extends TileEntity implements ITickable {
         return speed;
     }
 
+    @Override
+    public NeighborCapabilityCache getNeighborCache() {
+        return neighborCache;
+    }
+
+    @Override
+    @SideOnly(Side.CLIENT)
+    public double getMaxRenderDistanceSquared() {
+        double distance = ModConfig.client.itemRenderDistance;
+        return distance * distance;
+    }
+
+    /**
+     * Items on an express run are drawn by this pipe along the whole run.
+     */
+    @Override
+    @SideOnly(Side.CLIENT)
+    public AxisAlignedBB getRenderBoundingBox() {
+        AxisAlignedBB box = super.getRenderBoundingBox();
+        for (TravellingItem item : travellingItems) {
+            if (item.express > 1 && item.direction != null) {
+                box = box.union(new AxisAlignedBB(pos.offset(item.direction, item.express - 1)));
+            }
+        }
+        return box;
+    }
+
     // ========== NBT ==========
 
     @Override
@@ -533,13 +1013,20 @@ public class TileItemPipe extends TileEntity implements ITickable {
             }
         }
 
-        travellingItems.clear();
+        // Connection-only update packets leave the items alone
         if (compound.hasKey("Items")) {
+            travellingItems.clear();
             NBTTagList list = compound.getTagList("Items", Constants.NBT.TAG_COMPOUND);
+            expressCount = 0;
             for (int i = 0; i < list.tagCount(); i++) {
-                travellingItems.add(new TravellingItem(list.getCompoundTagAt(i)));
+                TravellingItem item = new TravellingItem(list.getCompoundTagAt(i));
+                if (item.express > 1) {
+                    expressCount++;
+                }
+                travellingItems.add(item);
             }
         }
+        nextItemId = compound.getInteger("NextItemId");
 
         speed = compound.getFloat("Speed");
         if (speed <= 0)
@@ -562,11 +1049,15 @@ public class TileItemPipe extends TileEntity implements ITickable {
         }
         compound.setInteger("BlockedConnections", blocked);
 
-        NBTTagList list = new NBTTagList();
-        for (TravellingItem item : travellingItems) {
-            list.appendTag(item.writeToNBT());
+        if (writeItemsToNBT) {
+            PipeItemTicker.syncProgress(this, null);
+            NBTTagList list = new NBTTagList();
+            for (TravellingItem item : travellingItems) {
+                list.appendTag(item.writeToNBT());
+            }
+            compound.setTag("Items", list);
         }
-        compound.setTag("Items", list);
+        compound.setInteger("NextItemId", nextItemId);
 
         compound.setFloat("Speed", speed);
 
@@ -577,7 +1068,14 @@ public class TileItemPipe extends TileEntity implements ITickable {
 
     @Override
     public SPacketUpdateTileEntity getUpdatePacket() {
-        return new SPacketUpdateTileEntity(pos, 1, getUpdateTag());
+        // Items are synced through PacketPipeItemEvents - only send pipe state here.
+        // The full tag (with items) still goes out with the chunk via getUpdateTag.
+        writeItemsToNBT = false;
+        try {
+            return new SPacketUpdateTileEntity(pos, 1, writeToNBT(new NBTTagCompound()));
+        } finally {
+            writeItemsToNBT = true;
+        }
     }
 
     @Override
@@ -589,7 +1087,7 @@ public class TileItemPipe extends TileEntity implements ITickable {
         readFromNBT(pkt.getNbtCompound());
 
         // Only mark for render update if the connections actually changed.
-        // This restores visual updates for wrench/placing while keeping the LAG FIX (ignoring item updates).
+        // Item movement never comes through here (see PacketPipeItemEvents).
         if (world != null && world.isRemote) {
             if (!connections.equals(oldConnections) || !blockedConnections.equals(oldBlocked)) {
                 world.markBlockRangeForRenderUpdate(pos, pos);
@@ -631,6 +1129,8 @@ public class TileItemPipe extends TileEntity implements ITickable {
                 public ItemStack insertItem(int slot, ItemStack stack, boolean simulate) {
                     if (stack.isEmpty())
                         return ItemStack.EMPTY;
+                    if (isFull())
+                        return stack; // Saturated - push back on the sender
 
                     if (!simulate) {
                         receiveItem(stack.copy(), sourceFace); // Track source direction!
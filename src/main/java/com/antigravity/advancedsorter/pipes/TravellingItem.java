@@ -16,9 +16,21 @@ public class TravellingItem {
     public EnumFacing source; // Where the item came from (to prevent backtracking)
     public int ticksInPipe; // How long in current pipe segment
     public boolean teleported; // Flag to prevent teleport loops
+    public int id; // Identifies the item in sync events (unique per pipe)
+    int tickerSlot = -1; // Slot in PipeItemTicker while moving (server only)
+    public PipeNetwork.Route route; // Path to the destination (server only, not saved)
+    public int routeHop; // Index of the current pipe in the route
+    public int hops; // Pipes entered and reroutes since the item entered the network
+    public long born; // World tick the item entered the network (moved forward while stalled)
+    public int express; // Pipes of the straight run the item travels in one go (0 = just this one)
+    int stallTicks; // Ticks to wait at the end of the pipe, handed to PipeItemTicker (server only)
 
+    /**
+     * Create an item for a stack. The item takes ownership of the stack, it is
+     * not copied.
+     */
     public TravellingItem(ItemStack stack, EnumFacing source) {
-        this.stack = stack.copy();
+        this.stack = stack;
         this.progress = 0.0f;
         this.source = source;
         this.direction = null; // Will be calculated by pipe
@@ -38,6 +50,10 @@ public class TravellingItem {
             this.source = EnumFacing.getFront(tag.getInteger("Source"));
         }
         this.teleported = tag.getBoolean("Teleported");
+        this.id = tag.getInteger("Id");
+        this.hops = tag.getInteger("Hops");
+        this.express = tag.getInteger("Express");
+        this.born = tag.hasKey("Born") ? tag.getLong("Born") : -1; // -1: saved before items aged
     }
 
     public NBTTagCompound writeToNBT() {
@@ -53,6 +69,10 @@ public class TravellingItem {
             tag.setInteger("Source", source.getIndex());
         }
         tag.setBoolean("Teleported", teleported);
+        tag.setInteger("Id", id);
+        tag.setInteger("Hops", hops);
+        tag.setLong("Born", born);
+        tag.setInteger("Express", express);
 
         return tag;
     }
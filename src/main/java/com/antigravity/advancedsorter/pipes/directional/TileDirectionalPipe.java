@@ -1,5 +1,6 @@
 package com.antigravity.advancedsorter.pipes.directional;
 
+import com.antigravity.advancedsorter.pipes.PipeNetwork;
 import com.antigravity.advancedsorter.pipes.TileItemPipe;
 import com.antigravity.advancedsorter.pipes.TravellingItem;
 import net.minecraft.entity.item.EntityItem;
@@ -7,10 +8,8 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 
-import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.EnumSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -94,6 +93,7 @@ public class TileDirectionalPipe extends TileItemPipe {
     public void setSideMode(EnumFacing face, SideMode mode) {
         sideModes.put(face, mode);
         manuallyConfigured.add(face); // Mark as manually configured
+        PipeNetwork.markRoutesDirty(this);
         markDirty();
         sendUpdate();
     }
@@ -119,6 +119,7 @@ public class TileDirectionalPipe extends TileItemPipe {
     public void resetToAuto(EnumFacing face) {
         manuallyConfigured.remove(face);
         autoAssignModes();
+        PipeNetwork.markRoutesDirty(this);
         markDirty();
         sendUpdate();
     }
@@ -162,6 +163,7 @@ public class TileDirectionalPipe extends TileItemPipe {
         super.updateConnections();
         // Re-run auto-assign when connections change
         autoAssignModes();
+        PipeNetwork.markRoutesDirty(this);
     }
 
     @Override
@@ -173,32 +175,30 @@ public class TileDirectionalPipe extends TileItemPipe {
 
     @Override
     protected EnumFacing chooseOutputDirection(TravellingItem item) {
-        // Only consider OUTPUT sides
-        List<EnumFacing> outputSides = new ArrayList<>();
-
-        for (EnumFacing face : connections) {
-            if (face == item.source)
-                continue; // Don't go back
-
-            SideMode mode = getSideMode(face);
-            if (mode == SideMode.OUTPUT && canOutputTo(face)) {
-                outputSides.add(face);
+        // Only consider OUTPUT sides, never go back
+        int outputs = PipeNetwork.nodeOf(this).getOutputMask() & ~PipeNetwork.faceBit(item.source);
+        int mask = 0;
+        for (EnumFacing face : EnumFacing.VALUES) {
+            if ((outputs & PipeNetwork.faceBit(face)) != 0 && getSideMode(face) == SideMode.OUTPUT) {
+                mask |= PipeNetwork.faceBit(face);
             }
         }
 
-        if (outputSides.isEmpty()) {
-            return null;
-        }
+        // Round-robin among outputs
+        return selectRoundRobin(mask);
+    }
 
-        if (outputSides.size() == 1) {
-            return outputSides.get(0);
-        }
+    @Override
+    protected boolean isPlainTransport() {
+        return false;
+    }
 
-        // Round-robin among outputs
-        roundRobinIndex = roundRobinIndex % outputSides.size();
-        EnumFacing selected = outputSides.get(roundRobinIndex);
-        roundRobinIndex = (roundRobinIndex + 1) % outputSides.size();
-        return selected;
+    /**
+     * Only OUTPUT sides lead anywhere in the routing tables.
+     */
+    @Override
+    protected boolean canRouteTo(EnumFacing face) {
+        return getSideMode(face) == SideMode.OUTPUT;
     }
 
     /**
@@ -2,6 +2,7 @@ package com.antigravity.advancedsorter.pipes.fluid;
 
 import com.antigravity.advancedsorter.AdvancedSorterMod;
 import com.antigravity.advancedsorter.pipes.ItemWrench;
+import com.antigravity.advancedsorter.util.NeighborCapabilityCache;
 import net.minecraft.block.Block;
 import net.minecraft.block.ITileEntityProvider;
 import net.minecraft.block.material.Material;
@@ -131,6 +132,7 @@ public class BlockFluidPipe extends Block implements ITileEntityProvider {
 
     @Override
     public void neighborChanged(IBlockState state, World worldIn, BlockPos pos, Block blockIn, BlockPos fromPos) {
+        NeighborCapabilityCache.onNeighborChanged(worldIn, pos, fromPos);
         if (!worldIn.isRemote) {
             TileEntity te = worldIn.getTileEntity(pos);
             if (te instanceof TileFluidPipe) {
@@ -139,6 +141,11 @@ public class BlockFluidPipe extends Block implements ITileEntityProvider {
         }
     }
 
+    @Override
+    public void onNeighborChange(IBlockAccess world, BlockPos pos, BlockPos neighbor) {
+        NeighborCapabilityCache.onNeighborTileChanged(world, pos, neighbor);
+    }
+
     private void notifyNeighborPipes(World world, BlockPos pos) {
         for (EnumFacing face : EnumFacing.VALUES) {
             BlockPos neighborPos = pos.offset(face);
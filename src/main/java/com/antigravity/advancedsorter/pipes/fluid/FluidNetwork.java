@@ -0,0 +1,431 @@
+package com.antigravity.advancedsorter.pipes.fluid;
+
+import com.antigravity.advancedsorter.AdvancedSorterMod;
+import com.antigravity.advancedsorter.ModConfig;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.fluids.FluidTank;
+import net.minecraftforge.fluids.capability.IFluidHandler;
+import net.minecraftforge.fluids.capability.IFluidTankProperties;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.relauncher.Side;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * A connected component of plain fluid pipes sharing one fluid buffer.
+ * The buffer holds as much as all member tanks together. Whatever fills a
+ * member fills the buffer, and once per tick the network as a whole pushes
+ * the buffer into the fluid handlers next to it (tanks, machines and pipes
+ * that aren't members), so a long line costs one transfer step instead of
+ * one per pipe.
+ *
+ * While a network exists the member tanks only mirror their share of the
+ * buffer, for rendering and saving. Networks are built lazily by flood fill
+ * from the member tanks and dissolved (buffer written back to the tanks)
+ * when a member's connections change or it leaves the world.
+ *
+ * Pipes holding another fluid than the network don't join it. Such a
+ * network dissolves once it runs empty, so the pipes merge on the rebuild.
+ */
+@Mod.EventBusSubscriber(modid = AdvancedSorterMod.MODID)
+public class FluidNetwork {
+
+    // Ticks between writes of the buffer into the member tanks
+    private static final int SHARE_INTERVAL = 20;
+
+    // Fill levels the pipe renderer tells apart, members only sync on a change
+    private static final int RENDER_LEVELS = 16;
+
+    // Ticks to wait after a push that nobody took anything from
+    private static final int IDLE_TICKS = 10;
+
+    // Networks with fluid in the buffer or shares to write, per world
+    private static final Map<World, Set<FluidNetwork>> active = new WeakHashMap<>();
+
+    private final World world;
+    private final List<TileFluidPipe> pipes = new ArrayList<>();
+    private final List<Acceptor> acceptors = new ArrayList<>();
+    private final FluidTank buffer;
+    private boolean dissolved = false;
+    private boolean split = false; // A connected pipe holds another fluid
+    private boolean sharesDirty = false; // Buffer changed since the shares were written
+    private long lastShareTick = 0;
+    private int nextAcceptor = 0; // First acceptor of the next push, rotates
+    private long idleUntil = 0; // No push before this tick unless the buffer changes
+
+    /**
+     * A fluid handler next to a member on one of its connected faces.
+     */
+    private static class Acceptor {
+        final TileFluidPipe pipe;
+        final EnumFacing face;
+
+        Acceptor(TileFluidPipe pipe, EnumFacing face) {
+            this.pipe = pipe;
+            this.face = face;
+        }
+    }
+
+    /**
+     * Fluid handler a member exposes on one side: fills and drains the
+     * network buffer. Resolves the network on every call, so neighbors may
+     * cache it across rebuilds.
+     */
+    static class PipeHandler implements IFluidHandler {
+        private final TileFluidPipe pipe;
+        private long fedTick = -1; // Last tick fluid came in through this side
+
+        PipeHandler(TileFluidPipe pipe) {
+            this.pipe = pipe;
+        }
+
+        private IFluidHandler target() {
+            FluidNetwork network = networkOf(pipe);
+            return network != null ? network.buffer : pipe.tank;
+        }
+
+        @Override
+        public IFluidTankProperties[] getTankProperties() {
+            return target().getTankProperties();
+        }
+
+        @Override
+        public int fill(FluidStack resource, boolean doFill) {
+            int filled = target().fill(resource, doFill);
+            if (doFill && filled > 0) {
+                fedTick = pipe.getWorld().getTotalWorldTime();
+            }
+            return filled;
+        }
+
+        @Override
+        @Nullable
+        public FluidStack drain(FluidStack resource, boolean doDrain) {
+            return target().drain(resource, doDrain);
+        }
+
+        @Override
+        @Nullable
+        public FluidStack drain(int maxDrain, boolean doDrain) {
+            return target().drain(maxDrain, doDrain);
+        }
+    }
+
+    private FluidNetwork(World world) {
+        this.world = world;
+        this.buffer = new FluidTank(0) {
+            @Override
+            protected void onContentsChanged() {
+                onBufferChanged();
+            }
+        };
+    }
+
+    /**
+     * Get the network of a pipe, building it if it is missing or dissolved.
+     *
+     * @return the network, null if the pipe doesn't use one
+     */
+    @Nullable
+    public static FluidNetwork networkOf(TileFluidPipe pipe) {
+        if (!pipe.usesNetwork() || pipe.isInvalid()) {
+            return null;
+        }
+        FluidNetwork network = pipe.network;
+        if (network == null || network.dissolved) {
+            network = build(pipe);
+        }
+        return network;
+    }
+
+    /**
+     * Called by a pipe after its connections changed (connection update or
+     * wrench toggle). Its network may have split or merged.
+     */
+    public static void onConnectionsChanged(TileFluidPipe pipe) {
+        if (pipe.network != null) {
+            pipe.network.dissolve();
+        }
+    }
+
+    /**
+     * Called when a pipe leaves the world (broken or chunk unloaded), or
+     * stops using networks.
+     */
+    public static void onPipeRemoved(TileFluidPipe pipe) {
+        if (pipe.network != null) {
+            pipe.network.dissolve();
+        }
+    }
+
+    /**
+     * Bring the member tanks up to date with the buffer before a pipe saves.
+     */
+    public static void writeShares(TileFluidPipe pipe) {
+        FluidNetwork network = pipe.network;
+        if (network != null && !network.dissolved && network.sharesDirty) {
+            network.writeShares();
+        }
+    }
+
+    // ========== Building ==========
+
+    private static FluidNetwork build(TileFluidPipe origin) {
+        FluidNetwork network = new FluidNetwork(origin.getWorld());
+        Deque<TileFluidPipe> queue = new ArrayDeque<>();
+        network.join(origin);
+        queue.add(origin);
+
+        while (!queue.isEmpty()) {
+            TileFluidPipe pipe = queue.poll();
+            for (EnumFacing face : pipe.getConnections()) {
+                TileEntity neighbor = pipe.neighborCache.getTileEntity(face);
+                if (!(neighbor instanceof TileFluidPipe)) {
+                    continue;
+                }
+                TileFluidPipe neighborPipe = (TileFluidPipe) neighbor;
+                if (neighborPipe.network == network || !network.canJoin(neighborPipe, face)) {
+                    continue;
+                }
+                network.join(neighborPipe);
+                queue.add(neighborPipe);
+            }
+        }
+
+        network.findAcceptors();
+        if (network.buffer.getFluidAmount() > 0) {
+            network.activate();
+        }
+        return network;
+    }
+
+    private boolean canJoin(TileFluidPipe pipe, EnumFacing face) {
+        if (!pipe.usesNetwork() || pipe.isInvalid() || !pipe.getConnections().contains(face.getOpposite())) {
+            return false;
+        }
+        FluidStack fluid = contentsOf(pipe);
+        FluidStack ours = buffer.getFluid();
+        if (fluid != null && ours != null && !ours.isFluidEqual(fluid)) {
+            split = true;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * What a pipe holds: the buffer of its network, or its own tank.
+     */
+    @Nullable
+    private static FluidStack contentsOf(TileFluidPipe pipe) {
+        FluidNetwork network = pipe.network;
+        if (network != null && !network.dissolved) {
+            return network.buffer.getFluid();
+        }
+        return pipe.tank.getFluid();
+    }
+
+    private void join(TileFluidPipe pipe) {
+        FluidNetwork previous = pipe.network;
+        if (previous != null && previous != this && !previous.dissolved) {
+            // Pipe was part of another network that is now connected to us - merge
+            previous.dissolve();
+        }
+        pipe.network = this;
+        pipes.add(pipe);
+        buffer.setCapacity(buffer.getCapacity() + pipe.tank.getCapacity());
+        FluidStack contents = pipe.tank.getFluid();
+        if (contents != null && contents.amount > 0) {
+            buffer.fill(contents.copy(), true);
+        }
+    }
+
+    /**
+     * Collect the connected faces of the members that don't lead to another
+     * member.
+     */
+    private void findAcceptors() {
+        for (TileFluidPipe pipe : pipes) {
+            for (EnumFacing face : pipe.getConnections()) {
+                TileEntity neighbor = pipe.neighborCache.getTileEntity(face);
+                if (neighbor instanceof TileFluidPipe && ((TileFluidPipe) neighbor).network == this) {
+                    continue;
+                }
+                acceptors.add(new Acceptor(pipe, face));
+            }
+        }
+    }
+
+    private void dissolve() {
+        if (dissolved)
+            return;
+        writeShares(); // The buffer goes back into the member tanks
+        dissolved = true;
+        for (TileFluidPipe pipe : pipes) {
+            if (pipe.network == this) {
+                pipe.network = null;
+                pipe.wakeUp(); // Rebuilds on its next tick
+            }
+        }
+        pipes.clear();
+        acceptors.clear();
+        Set<FluidNetwork> networks = active.get(world);
+        if (networks != null) {
+            networks.remove(this);
+        }
+    }
+
+    // ========== Ticking ==========
+
+    private void onBufferChanged() {
+        sharesDirty = true;
+        idleUntil = 0;
+        activate();
+    }
+
+    private void activate() {
+        if (!dissolved) {
+            active.computeIfAbsent(world, w -> Collections.newSetFromMap(new IdentityHashMap<>())).add(this);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || event.side != Side.SERVER) {
+            return;
+        }
+        Set<FluidNetwork> networks = active.get(event.world);
+        if (networks == null || networks.isEmpty()) {
+            return;
+        }
+        for (FluidNetwork network : new ArrayList<>(networks)) {
+            if (!ModConfig.pipes.fluidNetworks) {
+                network.dissolve();
+            } else if (!network.dissolved) {
+                network.tick();
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        active.remove(event.getWorld());
+    }
+
+    private void tick() {
+        long now = world.getTotalWorldTime();
+        if (buffer.getFluidAmount() > 0 && !acceptors.isEmpty() && now >= idleUntil && !push(now)) {
+            idleUntil = now + IDLE_TICKS; // Everything is full, wait for room
+        }
+
+        if (sharesDirty && now - lastShareTick >= SHARE_INTERVAL) {
+            writeShares();
+        }
+
+        if (buffer.getFluidAmount() <= 0 && !sharesDirty) {
+            if (split) {
+                dissolve(); // Let the pipes with the other fluid join on the rebuild
+            } else {
+                active.get(world).remove(this);
+            }
+        }
+    }
+
+    /**
+     * Push the buffer into the acceptors, split evenly between them and at
+     * most the transfer rate of the member each acceptor is next to.
+     * Acceptors that fed the buffer this tick, and pipes that don't take
+     * fluid back on that side, are skipped so fluid doesn't flow back and
+     * forth.
+     *
+     * @return true if anything was moved
+     */
+    private boolean push(long now) {
+        int count = acceptors.size();
+        int start = nextAcceptor;
+        nextAcceptor = (nextAcceptor + 1) % count;
+        boolean moved = false;
+
+        for (int i = 0; i < count; i++) {
+            int amount = buffer.getFluidAmount();
+            if (amount <= 0) {
+                break;
+            }
+            Acceptor acceptor = acceptors.get((start + i) % count);
+            if (acceptor.pipe.getNetworkHandler(acceptor.face).fedTick == now) {
+                continue;
+            }
+            TileEntity neighbor = acceptor.pipe.neighborCache.getTileEntity(acceptor.face);
+            if (neighbor instanceof TileFluidPipe
+                    && !((TileFluidPipe) neighbor).acceptsFromNetwork(acceptor.face.getOpposite())) {
+                continue;
+            }
+            int share = Math.min(acceptor.pipe.getTier().getTransferRate(), Math.max(1, amount / (count - i)));
+
+            IFluidHandler handler = acceptor.pipe.getNeighborFluidHandler(acceptor.face);
+            if (handler == null) {
+                continue;
+            }
+            FluidStack toTransfer = buffer.drain(share, false);
+            if (toTransfer == null || toTransfer.amount <= 0) {
+                continue;
+            }
+            int filled = handler.fill(toTransfer, true);
+            if (filled > 0) {
+                buffer.drain(filled, true);
+                moved = true;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Split the buffer over the member tanks by capacity. Members whose fill
+     * level changed visibly sync to clients.
+     */
+    private void writeShares() {
+        sharesDirty = false;
+        lastShareTick = world.getTotalWorldTime();
+
+        FluidStack fluid = buffer.getFluid();
+        int remaining = buffer.getFluidAmount();
+        int capacityLeft = buffer.getCapacity();
+        for (TileFluidPipe pipe : pipes) {
+            int capacity = pipe.tank.getCapacity();
+            int share = capacityLeft > 0 ? (int) ((long) remaining * capacity / capacityLeft) : 0;
+            remaining -= share;
+            capacityLeft -= capacity;
+
+            int before = pipe.tank.getFluidAmount();
+            if (before == share) {
+                continue;
+            }
+            pipe.tank.setFluid(share > 0 ? new FluidStack(fluid, share) : null);
+            world.markChunkDirty(pipe.getPos(), pipe);
+            if (renderLevel(before, capacity) != renderLevel(share, capacity)) {
+                pipe.requestClientSync();
+            }
+        }
+    }
+
+    private static int renderLevel(int amount, int capacity) {
+        if (amount <= 0) {
+            return -1;
+        }
+        return (int) ((long) amount * RENDER_LEVELS / capacity);
+    }
+}
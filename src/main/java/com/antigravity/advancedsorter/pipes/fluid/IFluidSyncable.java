@@ -16,4 +16,11 @@ public interface IFluidSyncable {
     default boolean hasViewers() {
         return false;
     }
+
+    /**
+     * Called on every change of the tank contents (fill or drain), before any
+     * sync threshold is applied. Used to wake sleeping tiles.
+     */
+    default void onTankContentsChanged() {
+    }
 }
@@ -53,6 +53,13 @@ public class SyncingFluidTank extends FluidTank {
         return result;
     }
 
+    @Override
+    protected void onContentsChanged() {
+        if (syncable != null) {
+            syncable.onTankContentsChanged();
+        }
+    }
+
     private void checkForSync() {
         if (syncable == null || syncable.getSyncableWorld() == null || syncable.getSyncableWorld().isRemote) {
             return;
@@ -20,21 +20,40 @@ public class TileFluidOutlet extends TileEntity implements ITickable, IFluidSync
 
     private final SyncingFluidTank tank = new SyncingFluidTank(2000, this);
 
+    // Sleep while there is less than a bucket; back off while there is no room
+    private boolean sleeping = false;
+    private int sleepTimer = 0;
+
     @Override
     public void update() {
-        if (world.isRemote)
+        if (world.isRemote || sleeping)
+            return;
+
+        if (sleepTimer > 0) {
+            sleepTimer--;
             return;
+        }
 
         // Try to place multiple blocks per tick if we have enough fluid
         // This makes it feel like it's flowing at the speed of the pipe (e.g. diamond
         // pipe)
         int blocksToPlace = Math.min(tank.getFluidAmount() / 1000, 10); // Up to 10 blocks per tick
-        if (blocksToPlace > 0) {
-            tryPlaceMultipleFluids(blocksToPlace);
+        if (blocksToPlace <= 0) {
+            sleeping = true; // Woken by the next fill
+        } else if (!tryPlaceMultipleFluids(blocksToPlace)) {
+            sleepTimer = 20; // Nowhere to place - look again in a second
         }
     }
 
-    private void tryPlaceMultipleFluids(int count) {
+    @Override
+    public void onTankContentsChanged() {
+        sleeping = false;
+    }
+
+    /**
+     * @return true if at least one fluid block was placed
+     */
+    private boolean tryPlaceMultipleFluids(int count) {
         IBlockState state = world.getBlockState(pos);
         if (state.getBlock() instanceof BlockFluidOutlet) {
             EnumFacing facing = state.getValue(BlockFluidOutlet.FACING);
@@ -52,10 +71,12 @@ public class TileFluidOutlet extends TileEntity implements ITickable, IFluidSync
                                 tank.drain(1000, true);
                             }
                         }
+                        return true;
                     }
                 }
             }
         }
+        return false;
     }
 
     private List<BlockPos> findLowestEmptyBlocks(EnumFacing facing, int maxCount) {
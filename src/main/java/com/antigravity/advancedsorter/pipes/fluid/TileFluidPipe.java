@@ -1,5 +1,8 @@
 package com.antigravity.advancedsorter.pipes.fluid;
 
+import com.antigravity.advancedsorter.ModConfig;
+import com.antigravity.advancedsorter.util.NeighborCapabilityCache;
+import com.antigravity.advancedsorter.util.PipeConnectionQueue;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
@@ -14,22 +17,35 @@ import net.minecraftforge.fluids.capability.IFluidHandler;
 import javax.annotation.Nullable;
 import java.util.EnumSet;
 import java.util.Set;
-import net.minecraft.util.math.BlockPos;
 
 /**
  * Base tile entity for fluid transport pipes.
  * Handles fluid storage and transfer to neighbors.
+ *
+ * Plain pipes move fluid as part of a {@link FluidNetwork}; their tank then
+ * only holds their share of the network buffer. Pipes that act on the fluid
+ * (see {@link #isNetworkPipe}) move it themselves.
  */
-public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncable {
+public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncable, PipeConnectionQueue.Pipe {
 
     protected final FluidPipeTier tier;
     protected final SyncingFluidTank tank;
     protected final Set<EnumFacing> connections = EnumSet.noneOf(EnumFacing.class);
     protected final Set<EnumFacing> blockedConnections = EnumSet.noneOf(EnumFacing.class);
-    protected boolean connectionsDirty = true;
+    protected boolean connectionsDirty = false; // Loaded pipes resolve through PipeConnectionQueue
     protected boolean syncRequested = false;
     protected int syncCooldown = 0;
 
+    // Idle pipes (empty, nothing to sync) skip their tick until woken
+    protected boolean sleeping = false;
+
+    // Neighbor tiles and their fluid handlers (invalidated by BlockFluidPipe)
+    protected final NeighborCapabilityCache neighborCache = new NeighborCapabilityCache(this);
+
+    // Shared buffer of the connected plain pipes (server only, built lazily)
+    FluidNetwork network;
+    private final FluidNetwork.PipeHandler[] networkHandlers = new FluidNetwork.PipeHandler[7]; // 6 faces + null side
+
     public TileFluidPipe() {
         this(FluidPipeTier.IRON);
     }
@@ -37,11 +53,14 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
     public TileFluidPipe(FluidPipeTier tier) {
         this.tier = tier;
         this.tank = new SyncingFluidTank(tier.getTankCapacity(), this);
+        for (int i = 0; i < networkHandlers.length; i++) {
+            networkHandlers[i] = new FluidNetwork.PipeHandler(this);
+        }
     }
 
     @Override
     public void update() {
-        if (world == null || world.isRemote)
+        if (world == null || world.isRemote || sleeping)
             return;
 
         if (connectionsDirty) {
@@ -49,9 +68,17 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
             connectionsDirty = false;
         }
 
-        // Transfer fluid to neighbors
-        if (tank.getFluidAmount() > 0) {
-            distributeFluid();
+        if (usesNetwork()) {
+            // The network moves the fluid, make sure we are part of one
+            FluidNetwork.networkOf(this);
+        } else {
+            if (network != null) {
+                FluidNetwork.onPipeRemoved(this); // Networks were turned off
+            }
+            // Transfer fluid to neighbors
+            if (tank.getFluidAmount() > 0) {
+                distributeFluid();
+            }
         }
 
         // Handle sync request from tank with rate limiting (every 10 ticks)
@@ -63,27 +90,53 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
             syncCooldown = 10; // Wait 10 ticks before next sync
             sendUpdate();
         }
+
+        if (!connectionsDirty && !syncRequested && (network != null || tank.getFluidAmount() <= 0)) {
+            sleeping = true;
+        }
+    }
+
+    /**
+     * Resume ticking after fluid arrived or connections/sync state changed.
+     */
+    public void wakeUp() {
+        sleeping = false;
+    }
+
+    @Override
+    public void onTankContentsChanged() {
+        wakeUp();
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        FluidNetwork.onPipeRemoved(this);
+    }
+
+    @Override
+    public void onChunkUnload() {
+        super.onChunkUnload();
+        FluidNetwork.onPipeRemoved(this);
     }
 
     @Override
     public void onLoad() {
         super.onLoad();
         if (world != null && !world.isRemote) {
-            // Update our connections
-            updateConnections();
-
-            // Notify all neighbor pipes to update their connections
-            for (EnumFacing face : EnumFacing.VALUES) {
-                BlockPos neighborPos = pos.offset(face);
-                TileEntity neighbor = world.getTileEntity(neighborPos);
-                if (neighbor instanceof TileFluidPipe) {
-                    ((TileFluidPipe) neighbor).updateConnections();
-                }
-            }
+            // Our connections and our neighbors' are resolved next tick
+            PipeConnectionQueue.schedule(this);
         }
     }
 
-    protected void updateConnections() {
+    /**
+     * Connect to the current neighbors. Only saves and syncs if the
+     * connections changed.
+     */
+    @Override
+    public void updateConnections() {
+        Set<EnumFacing> previous = EnumSet.noneOf(EnumFacing.class);
+        previous.addAll(connections);
         connections.clear();
         for (EnumFacing face : EnumFacing.VALUES) {
             if (blockedConnections.contains(face))
@@ -91,8 +144,7 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
 
             if (canConnectTo(face)) {
                 // Also check if neighbor has blocked us
-                BlockPos neighborPos = pos.offset(face);
-                TileEntity neighbor = world.getTileEntity(neighborPos);
+                TileEntity neighbor = neighborCache.getTileEntity(face);
                 if (neighbor instanceof TileFluidPipe) {
                     TileFluidPipe neighborPipe = (TileFluidPipe) neighbor;
                     if (neighborPipe.blockedConnections.contains(face.getOpposite())) {
@@ -102,12 +154,51 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
                 connections.add(face);
             }
         }
-        markDirty();
-        sendUpdate();
+        if (!connections.equals(previous)) {
+            FluidNetwork.onConnectionsChanged(this);
+            markDirty();
+            sendUpdate();
+        }
+    }
+
+    @Override
+    public boolean isConnectablePipe(TileEntity neighbor) {
+        return neighbor instanceof TileFluidPipe;
+    }
+
+    /**
+     * Whether this pipe only carries fluid along, so it can share a network
+     * buffer. Pipes that act on the fluid passing them return false.
+     */
+    protected boolean isNetworkPipe() {
+        return true;
+    }
+
+    /**
+     * Whether a fluid network next to this pipe may push fluid into it on a
+     * face. Pipes that only feed networks on that side return false.
+     */
+    protected boolean acceptsFromNetwork(EnumFacing face) {
+        return true;
+    }
+
+    /**
+     * Handler the network buffer is exposed through on a side.
+     */
+    FluidNetwork.PipeHandler getNetworkHandler(@Nullable EnumFacing side) {
+        return networkHandlers[side == null ? 6 : side.getIndex()];
+    }
+
+    /**
+     * Whether this pipe moves fluid through a network right now (server side,
+     * networks enabled).
+     */
+    boolean usesNetwork() {
+        return world != null && !world.isRemote && ModConfig.pipes.fluidNetworks && isNetworkPipe();
     }
 
     protected boolean canConnectTo(EnumFacing face) {
-        TileEntity neighbor = world.getTileEntity(pos.offset(face));
+        TileEntity neighbor = neighborCache.getTileEntity(face);
         if (neighbor == null)
             return false;
 
@@ -116,7 +207,15 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
             return true;
 
         // Connect to any IFluidHandler (tanks, machines, etc.)
-        return neighbor.hasCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, face.getOpposite());
+        return getNeighborFluidHandler(face) != null;
+    }
+
+    /**
+     * Fluid handler of the neighbor on a face (side facing us), from the cache.
+     */
+    @Nullable
+    protected IFluidHandler getNeighborFluidHandler(EnumFacing face) {
+        return neighborCache.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, face, face.getOpposite());
     }
 
     protected void distributeFluid() {
@@ -129,12 +228,7 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
 
         boolean transferred = false;
         for (EnumFacing face : connections) {
-            TileEntity neighbor = world.getTileEntity(pos.offset(face));
-            if (neighbor == null)
-                continue;
-
-            IFluidHandler handler = neighbor.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY,
-                    face.getOpposite());
+            IFluidHandler handler = getNeighborFluidHandler(face);
             if (handler != null) {
                 FluidStack toTransfer = tank.drain(amountPerSide, false);
                 if (toTransfer != null && toTransfer.amount > 0) {
@@ -154,6 +248,7 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
 
     public void markConnectionsDirty() {
         this.connectionsDirty = true;
+        wakeUp();
     }
 
     /**
@@ -162,8 +257,7 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
      * Reconnecting unblocks and re-establishes connection.
      */
     public void toggleConnection(EnumFacing face) {
-        BlockPos neighborPos = pos.offset(face);
-        TileEntity neighbor = world.getTileEntity(neighborPos);
+        TileEntity neighbor = neighborCache.getTileEntity(face);
         TileFluidPipe neighborPipe = (neighbor instanceof TileFluidPipe) ? (TileFluidPipe) neighbor : null;
 
         if (connections.contains(face)) {
@@ -198,6 +292,7 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
             }
         }
 
+        FluidNetwork.onConnectionsChanged(this);
         markDirty();
         sendUpdate();
     }
@@ -214,6 +309,11 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
         return tier;
     }
 
+    @Override
+    public NeighborCapabilityCache getNeighborCache() {
+        return neighborCache;
+    }
+
     protected void sendUpdate() {
         if (world != null && !world.isRemote) {
             IBlockState state = world.getBlockState(pos);
@@ -227,6 +327,7 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
      */
     public void requestClientSync() {
         this.syncRequested = true;
+        wakeUp();
     }
 
     @Override
@@ -252,7 +353,7 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
     @Nullable
     public <T> T getCapability(Capability<T> capability, @Nullable EnumFacing facing) {
         if (capability == CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY) {
-            return (T) tank;
+            return (T) (usesNetwork() ? getNetworkHandler(facing) : tank);
         }
         return super.getCapability(capability, facing);
     }
@@ -282,6 +383,7 @@ public class TileFluidPipe extends TileEntity implements ITickable, IFluidSyncab
     @Override
     public NBTTagCompound writeToNBT(NBTTagCompound compound) {
         super.writeToNBT(compound);
+        FluidNetwork.writeShares(this);
         compound.setTag("Tank", tank.writeToNBT(new NBTTagCompound()));
 
         int connMask = 0;
@@ -144,6 +144,16 @@ public class TileDirectionalFluidPipe extends TileFluidPipe {
 
     // ========== Transfer Logic ==========
 
+    @Override
+    protected boolean isNetworkPipe() {
+        return false;
+    }
+
+    @Override
+    protected boolean acceptsFromNetwork(EnumFacing face) {
+        return getSideMode(face) == SideMode.INPUT;
+    }
+
     @Override
     protected void distributeFluid() {
         if (tank.getFluidAmount() <= 0)
@@ -170,13 +180,7 @@ public class TileDirectionalFluidPipe extends TileFluidPipe {
             return;
 
         for (EnumFacing face : outputSides) {
-            net.minecraft.tileentity.TileEntity neighbor = world.getTileEntity(pos.offset(face));
-            if (neighbor == null)
-                continue;
-
-            net.minecraftforge.fluids.capability.IFluidHandler handler = neighbor.getCapability(
-                    net.minecraftforge.fluids.capability.CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY,
-                    face.getOpposite());
+            net.minecraftforge.fluids.capability.IFluidHandler handler = getNeighborFluidHandler(face);
 
             if (handler != null) {
                 FluidStack toTransfer = tank.drain(amountPerSide, false);
@@ -192,7 +196,7 @@ public class TileDirectionalFluidPipe extends TileFluidPipe {
     }
 
     @Override
-    protected void updateConnections() {
+    public void updateConnections() {
         super.updateConnections();
         autoAssignModes();
     }
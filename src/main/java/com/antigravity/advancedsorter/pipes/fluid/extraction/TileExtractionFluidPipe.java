@@ -8,7 +8,6 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
 import net.minecraftforge.fluids.FluidStack;
-import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
 import net.minecraftforge.fluids.capability.IFluidHandler;
 
 /**
@@ -16,12 +15,15 @@ import net.minecraftforge.fluids.capability.IFluidHandler;
  * Controlled remotely by pump controller blocks using frequency system,
  * or can be set to manual mode for always-on extraction.
  */
-public class TileExtractionFluidPipe extends TileFluidPipe {
+public class TileExtractionFluidPipe extends TileFluidPipe implements PumpRegistry.Listener {
 
     private int frequency = 0;
     private int lastRegisteredFrequency = -1;
     private boolean manualMode = false;
 
+    // Pumping state of the registered frequency, pushed by the registry
+    private boolean pumping = false;
+
     public TileExtractionFluidPipe() {
         super(FluidPipeTier.IRON);
     }
@@ -37,19 +39,15 @@ public class TileExtractionFluidPipe extends TileFluidPipe {
             PumpRegistry registry = PumpRegistry.get(world);
             if (lastRegisteredFrequency >= 0) {
                 registry.unregisterExtractionPipe(lastRegisteredFrequency, pos);
+                registry.unsubscribe(lastRegisteredFrequency, this);
             }
             registry.registerExtractionPipe(frequency, pos);
+            pumping = registry.subscribe(frequency, this);
             lastRegisteredFrequency = frequency;
         }
 
-        // Check if pumping is enabled: manual mode OR pump controller enabled
-        boolean shouldExtract = manualMode;
-        if (!shouldExtract) {
-            PumpRegistry registry = PumpRegistry.get(world);
-            shouldExtract = registry.isPumpingEnabled(frequency);
-        }
-
-        if (shouldExtract) {
+        // Extract in manual mode or while a pump controller enables the frequency
+        if (manualMode || pumping) {
             // Extract from adjacent tanks
             extractFromNeighbors();
         }
@@ -66,7 +64,7 @@ public class TileExtractionFluidPipe extends TileFluidPipe {
         int extractRate = tier.getTransferRate();
 
         for (EnumFacing face : EnumFacing.VALUES) {
-            TileEntity neighbor = world.getTileEntity(pos.offset(face));
+            TileEntity neighbor = neighborCache.getTileEntity(face);
             if (neighbor == null)
                 continue;
 
@@ -74,8 +72,7 @@ public class TileExtractionFluidPipe extends TileFluidPipe {
             if (neighbor instanceof TileFluidPipe)
                 continue;
 
-            IFluidHandler handler = neighbor.getCapability(
-                    CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, face.getOpposite());
+            IFluidHandler handler = getNeighborFluidHandler(face);
 
             if (handler != null) {
                 // Try to extract
@@ -92,17 +89,39 @@ public class TileExtractionFluidPipe extends TileFluidPipe {
         }
     }
 
+    @Override
+    protected boolean isNetworkPipe() {
+        return false;
+    }
+
+    @Override
+    protected boolean acceptsFromNetwork(EnumFacing face) {
+        return false; // Only pulls from sources
+    }
+
+    @Override
+    public void onPumpingChanged(int frequency, boolean enabled) {
+        pumping = enabled;
+    }
+
     @Override
     public void invalidate() {
         super.invalidate();
         if (world != null && !world.isRemote && lastRegisteredFrequency >= 0) {
-            PumpRegistry.get(world).unregisterExtractionPipe(lastRegisteredFrequency, pos);
+            PumpRegistry registry = PumpRegistry.get(world);
+            registry.unregisterExtractionPipe(lastRegisteredFrequency, pos);
+            registry.unsubscribe(lastRegisteredFrequency, this);
         }
     }
 
     @Override
     public void onChunkUnload() {
         super.onChunkUnload();
+        // Stay registered, but stop listening until loaded again
+        if (world != null && !world.isRemote && lastRegisteredFrequency >= 0) {
+            PumpRegistry.get(world).unsubscribe(lastRegisteredFrequency, this);
+            lastRegisteredFrequency = -1;
+        }
     }
 
     public int getFrequency() {
@@ -3,13 +3,13 @@ package com.antigravity.advancedsorter.pipes.fluid.teleport;
 import com.antigravity.advancedsorter.pipes.fluid.FluidPipeTier;
 import com.antigravity.advancedsorter.pipes.fluid.TileFluidPipe;
 import com.antigravity.advancedsorter.network.PacketTeleportInfo;
+import com.antigravity.advancedsorter.util.ChunkLoadingHandler;
+import com.antigravity.advancedsorter.util.TeleportBus;
 import com.antigravity.advancedsorter.util.TeleportRegistry;
 import net.minecraft.entity.player.EntityPlayerMP;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
-import net.minecraft.world.WorldServer;
-import net.minecraftforge.common.DimensionManager;
 import net.minecraftforge.fluids.FluidStack;
 import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
 import net.minecraftforge.fluids.capability.IFluidHandler;
@@ -21,7 +21,7 @@ import net.minecraft.util.math.BlockPos;
 /**
  * Teleport Fluid Pipe - transfers fluids across dimensions.
  */
-public class TileTeleportFluidPipe extends TileFluidPipe {
+public class TileTeleportFluidPipe extends TileFluidPipe implements TeleportBus.Sender {
 
     private int frequency = 0;
     private TeleportMode mode = TeleportMode.BOTH;
@@ -72,19 +72,45 @@ public class TileTeleportFluidPipe extends TileFluidPipe {
     public void setMode(TeleportMode mode) {
         this.mode = mode;
         updateRegistry();
+        updateChunkLoading();
         markDirty();
         sendUpdate();
         syncConnectionInfo();
     }
 
+    @Override
+    protected boolean isNetworkPipe() {
+        return false;
+    }
+
+    @Override
+    protected boolean acceptsFromNetwork(EnumFacing face) {
+        return mode.canSend(); // Receivers only feed the network
+    }
+
     @Override
     public void onLoad() {
         super.onLoad();
         if (world != null && !world.isRemote) {
             updateRegistry();
-            // Request chunk loading to keep teleporting even when player leaves
-            com.antigravity.advancedsorter.util.ChunkLoadingHandler.getInstance()
-                    .requestChunkLoading(world, pos);
+            updateChunkLoading();
+            if (mode.canReceive()) {
+                TeleportBus.queueArrival(this);
+            }
+        }
+    }
+
+    /**
+     * Keep the chunk loaded while this pipe sends. Receivers don't need it:
+     * what they miss while unloaded is buffered for them.
+     */
+    private void updateChunkLoading() {
+        if (world == null || world.isRemote)
+            return;
+        if (mode.canSend()) {
+            ChunkLoadingHandler.getInstance().requestChunkLoading(world, pos);
+        } else {
+            ChunkLoadingHandler.getInstance().releaseChunkLoading(world, pos);
         }
     }
 
@@ -95,6 +121,9 @@ public class TileTeleportFluidPipe extends TileFluidPipe {
         // work
         // even when the source chunk is not loaded. Pipes are only unregistered on
         // invalidate().
+        if (world != null && !world.isRemote && mode.canReceive()) {
+            TeleportBus.invalidateReceivers(TeleportBus.Channel.FLUID, frequency);
+        }
     }
 
     @Override
@@ -103,8 +132,7 @@ public class TileTeleportFluidPipe extends TileFluidPipe {
         if (world != null && !world.isRemote) {
             TeleportRegistry.get(world).removeFluidPipe(pos, world.provider.getDimension());
             // Release chunk loading
-            com.antigravity.advancedsorter.util.ChunkLoadingHandler.getInstance()
-                    .releaseChunkLoading(world, pos);
+            ChunkLoadingHandler.getInstance().releaseChunkLoading(world, pos);
         }
     }
 
@@ -122,100 +150,104 @@ public class TileTeleportFluidPipe extends TileFluidPipe {
 
         super.update();
 
-        // Try to teleport fluid if we can send
+        // Teleport fluid at the end of the tick if we can send
         if (mode.canSend() && tank.getFluidAmount() > 0) {
-            tryTeleportFluid();
+            TeleportBus.queue(this);
         }
     }
 
-    private void tryTeleportFluid() {
-        TeleportRegistry registry = TeleportRegistry.get(world);
-        List<TeleportRegistry.TeleportLocation> receivers = registry.getFluidReceivers(frequency);
+    @Override
+    public TeleportBus.Channel getTeleportChannel() {
+        return TeleportBus.Channel.FLUID;
+    }
 
-        // If no receivers found in registry, try to find and register any pipes
-        // that should be on this frequency but weren't registered yet (world load issue)
+    /**
+     * Called by the teleport bus at the end of the tick. Sends one transfer to
+     * the next loaded receiver (round-robin) that takes fluid, or buffers it
+     * for the unloaded ones.
+     */
+    @Override
+    public void deliverTeleports(TeleportBus.Receivers receivers) {
+        // Stale registry entries were already dropped while resolving
         if (receivers.isEmpty()) {
-            // Cleanup and re-validate registry periodically
-            registry.validateAndCleanup(world);
             return;
         }
 
         int amountToSend = Math.min(tank.getFluidAmount(), tier.getTransferRate());
+        if (amountToSend <= 0) {
+            return;
+        }
 
         // Ensure index is within bounds
-        if (roundRobinIndex >= receivers.size()) {
+        List<TileEntity> loaded = receivers.loaded;
+        int size = loaded.size();
+        if (roundRobinIndex >= size) {
             roundRobinIndex = 0;
         }
 
-        int attempts = 0;
-        int size = receivers.size();
-
         // Try to find a receiver using Round-Robin approach
-        while (attempts < size) {
+        for (int attempts = 0; attempts < size; attempts++) {
             int currentIndex = (roundRobinIndex + attempts) % size;
-            TeleportRegistry.TeleportLocation loc = receivers.get(currentIndex);
-            attempts++;
-
-            if (loc.dimension == world.provider.getDimension() && loc.pos.equals(pos)) {
+            TileEntity te = loaded.get(currentIndex);
+            if (te == this) {
                 continue; // Skip self
             }
-
-            WorldServer targetWorld = DimensionManager.getWorld(loc.dimension);
-            if (targetWorld == null) {
-                try {
-                    DimensionManager.initDimension(loc.dimension);
-                    targetWorld = DimensionManager.getWorld(loc.dimension);
-                } catch (Exception e) {
-                    continue;
+            TileTeleportFluidPipe targetPipe = (TileTeleportFluidPipe) te;
+
+            // Transfer fluid
+            FluidStack toTransfer = tank.drain(amountToSend, false);
+            if (toTransfer != null && toTransfer.amount > 0) {
+                int filled = targetPipe.tank.fill(toTransfer, true);
+                if (filled > 0) {
+                    tank.drain(filled, true);
+                    targetPipe.markDirty();
+                    targetPipe.requestClientSync(); // Use rate-limited sync to prevent packet spam
+                    markDirty();
+                    this.requestClientSync(); // Sync local tank changes too
+                    ChunkLoadingHandler.getInstance().markTraffic(world, pos);
+
+                    // Success! Update index to start from the next one next time
+                    roundRobinIndex = (currentIndex + 1) % size;
+                    return; // Only transfer to one receiver per tick
                 }
             }
+        }
 
-            if (targetWorld != null) {
-                if (!targetWorld.isBlockLoaded(loc.pos)) {
-                    targetWorld.getChunkProvider().loadChunk(loc.pos.getX() >> 4, loc.pos.getZ() >> 4);
-                }
-
-                TileEntity te = targetWorld.getTileEntity(loc.pos);
-                if (te instanceof TileTeleportFluidPipe) {
-                    TileTeleportFluidPipe targetPipe = (TileTeleportFluidPipe) te;
-
-                    // Force target to register if not in registry or frequency mismatch
-                    if (targetPipe.getFrequency() != frequency) {
-                        // Registry has stale data - remove invalid entry
-                        registry.removeFluidPipe(loc.pos, loc.dimension);
-                        continue;
-                    }
-                    if (!targetPipe.getMode().canReceive()) {
-                        continue;
-                    }
-
-                    // Ensure target is registered (handles world load race condition)
-                    targetPipe.updateRegistry();
-
-                    // Transfer fluid
-                    FluidStack toTransfer = tank.drain(amountToSend, false);
-                    if (toTransfer != null && toTransfer.amount > 0) {
-                        int filled = targetPipe.tank.fill(toTransfer, true);
-                        if (filled > 0) {
-                            tank.drain(filled, true);
-                            targetPipe.markDirty();
-                            targetPipe.requestClientSync(); // Use rate-limited sync to prevent packet spam
-                            markDirty();
-                            this.requestClientSync(); // Sync local tank changes too
-
-                            // Success! Update index to start from the next one next time
-                            roundRobinIndex = (currentIndex + 1) % size;
-                            return; // Only transfer to one receiver per tick
-                        }
-                    }
-                } else {
-                    // Tile entity is not a teleport pipe - remove from registry
-                    registry.removeFluidPipe(loc.pos, loc.dimension);
+        // No loaded receiver took it - keep it for the unloaded ones
+        if (receivers.unloaded > 0) {
+            FluidStack toBuffer = tank.drain(amountToSend, false);
+            if (toBuffer != null && toBuffer.amount > 0) {
+                int buffered = TeleportRegistry.get(world).bufferFluid(frequency, toBuffer);
+                if (buffered > 0) {
+                    tank.drain(buffered, true);
+                    markDirty();
+                    requestClientSync();
+                    ChunkLoadingHandler.getInstance().markTraffic(world, pos);
                 }
             }
         }
     }
 
+    /**
+     * Fill the tank from the frequency's buffered fluid.
+     */
+    @Override
+    public void receiveBuffered(TeleportRegistry registry) {
+        if (!mode.canReceive()) {
+            return;
+        }
+        FluidStack buffered = registry.peekFluid(frequency);
+        if (buffered == null) {
+            return;
+        }
+        int filled = tank.fill(buffered, true);
+        if (filled > 0) {
+            registry.drainFluid(frequency, filled);
+            markDirty();
+            requestClientSync();
+        }
+    }
+
     @Override
     public void readFromNBT(NBTTagCompound compound) {
         super.readFromNBT(compound);
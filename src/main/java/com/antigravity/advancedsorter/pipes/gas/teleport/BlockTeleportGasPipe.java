@@ -2,6 +2,7 @@ package com.antigravity.advancedsorter.pipes.gas.teleport;
 
 import com.antigravity.advancedsorter.AdvancedSorterMod;
 import com.antigravity.advancedsorter.pipes.ItemWrench;
+import com.antigravity.advancedsorter.util.NeighborCapabilityCache;
 import net.minecraft.block.Block;
 import net.minecraft.block.ITileEntityProvider;
 import net.minecraft.block.material.Material;
@@ -112,6 +113,7 @@ public class BlockTeleportGasPipe extends Block implements ITileEntityProvider {
 
     @Override
     public void neighborChanged(IBlockState state, World worldIn, BlockPos pos, Block blockIn, BlockPos fromPos) {
+        NeighborCapabilityCache.onNeighborChanged(worldIn, pos, fromPos);
         if (!worldIn.isRemote) {
             TileEntity te = worldIn.getTileEntity(pos);
             if (te instanceof TileTeleportGasPipe) {
@@ -120,6 +122,11 @@ public class BlockTeleportGasPipe extends Block implements ITileEntityProvider {
         }
     }
 
+    @Override
+    public void onNeighborChange(IBlockAccess world, BlockPos pos, BlockPos neighbor) {
+        NeighborCapabilityCache.onNeighborTileChanged(world, pos, neighbor);
+    }
+
     @Override
     public void onBlockAdded(World worldIn, BlockPos pos, IBlockState state) {
         if (!worldIn.isRemote) {
@@ -2,6 +2,9 @@ package com.antigravity.advancedsorter.pipes.gas.teleport;
 
 import com.antigravity.advancedsorter.AdvancedSorterMod;
 import com.antigravity.advancedsorter.network.PacketTeleportInfo;
+import com.antigravity.advancedsorter.util.ChunkLoadingHandler;
+import com.antigravity.advancedsorter.util.NeighborCapabilityCache;
+import com.antigravity.advancedsorter.util.TeleportBus;
 import com.antigravity.advancedsorter.util.TeleportRegistry;
 import mekanism.api.gas.*;
 import net.minecraft.block.state.IBlockState;
@@ -10,9 +13,6 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.ITickable;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.WorldServer;
-import net.minecraftforge.common.DimensionManager;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.capabilities.CapabilityInject;
 
@@ -21,12 +21,14 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
  * Teleport Gas Pipe - transfers gases across dimensions using Mekanism gas API.
  */
-public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHandler {
+public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHandler, NeighborCapabilityCache.Provider,
+        TeleportBus.Sender {
 
     @CapabilityInject(IGasHandler.class)
     public static Capability<IGasHandler> GAS_HANDLER_CAPABILITY = null;
@@ -46,6 +48,7 @@ public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHa
             int added = super.receive(stack, doTransfer);
             if (doTransfer && added > 0) {
                 syncRequested = true;
+                sleeping = false;
                 markDirty();
             }
             return added;
@@ -56,6 +59,7 @@ public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHa
             GasStack drained = super.draw(amount, doTransfer);
             if (doTransfer && drained != null && drained.amount > 0) {
                 syncRequested = true;
+                sleeping = false;
                 markDirty();
             }
             return drained;
@@ -66,6 +70,13 @@ public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHa
     private final Set<EnumFacing> blockedConnections = EnumSet.noneOf(EnumFacing.class);
     private boolean connectionsDirty = true;
 
+    // Empty pipes with nothing to sync skip their tick until gas arrives or a
+    // neighbor changes
+    private boolean sleeping = false;
+
+    // Neighbor tiles and their gas handlers (invalidated by BlockTeleportGasPipe)
+    private final NeighborCapabilityCache neighborCache = new NeighborCapabilityCache(this);
+
     public enum TeleportMode {
         SEND(true, false),
         RECEIVE(false, true),
@@ -110,6 +121,7 @@ public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHa
     public void setMode(TeleportMode mode) {
         this.mode = mode;
         updateRegistry();
+        updateChunkLoading();
         markDirty();
         sendUpdate();
         syncConnectionInfo();
@@ -121,11 +133,11 @@ public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHa
 
     public void checkConnections() {
         connectionsDirty = true;
+        sleeping = false;
     }
 
     public void toggleConnection(EnumFacing side) {
-        BlockPos neighborPos = pos.offset(side);
-        TileEntity neighbor = world.getTileEntity(neighborPos);
+        TileEntity neighbor = neighborCache.getTileEntity(side);
         TileTeleportGasPipe neighborPipe = (neighbor instanceof TileTeleportGasPipe) ? (TileTeleportGasPipe) neighbor : null;
 
         if (connections.contains(side)) {
@@ -153,13 +165,13 @@ public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHa
             // The connections will be re-established in updateConnections() which is called via connectionsDirty
         }
 
-        connectionsDirty = true;
+        checkConnections();
         markDirty();
         sendUpdate();
 
         // Ensure neighbor also updates its connections next tick
         if (neighborPipe != null) {
-            neighborPipe.connectionsDirty = true;
+            neighborPipe.checkConnections();
             neighborPipe.sendUpdate();
         }
     }
@@ -174,8 +186,7 @@ public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHa
 
             if (canConnectTo(side)) {
                 // Also check if neighbor has blocked us
-                BlockPos neighborPos = pos.offset(side);
-                TileEntity neighbor = world.getTileEntity(neighborPos);
+                TileEntity neighbor = neighborCache.getTileEntity(side);
                 if (neighbor instanceof TileTeleportGasPipe) {
                     TileTeleportGasPipe neighborPipe = (TileTeleportGasPipe) neighbor;
                     if (neighborPipe.blockedConnections.contains(side.getOpposite())) {
@@ -197,38 +208,58 @@ public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHa
     }
 
     private boolean canConnectTo(EnumFacing side) {
-        TileEntity tile = world.getTileEntity(pos.offset(side));
+        TileEntity tile = neighborCache.getTileEntity(side);
         if (tile == null) return false;
 
         // Connect to other teleport pipes
         if (tile instanceof TileTeleportGasPipe) return true;
 
-        if (tile.hasCapability(GAS_HANDLER_CAPABILITY, side.getOpposite())) {
-            return true;
-        }
-        return tile instanceof IGasHandler;
+        return getNeighborGasHandler(side) != null;
     }
 
     public GasTank getTank() {
         return tank;
     }
 
+    @Override
+    public NeighborCapabilityCache getNeighborCache() {
+        return neighborCache;
+    }
+
     @Override
     public void onLoad() {
         super.onLoad();
         if (world != null && !world.isRemote) {
             updateRegistry();
-            // Request chunk loading to keep teleporting even when player leaves
-            com.antigravity.advancedsorter.util.ChunkLoadingHandler.getInstance()
-                    .requestChunkLoading(world, pos);
+            updateChunkLoading();
+            if (mode.canReceive()) {
+                TeleportBus.queueArrival(this);
+            }
             checkConnections();
         }
     }
 
+    /**
+     * Keep the chunk loaded while this pipe sends. Receivers don't need it:
+     * what they miss while unloaded is buffered for them.
+     */
+    private void updateChunkLoading() {
+        if (world == null || world.isRemote)
+            return;
+        if (mode.canSend()) {
+            ChunkLoadingHandler.getInstance().requestChunkLoading(world, pos);
+        } else {
+            ChunkLoadingHandler.getInstance().releaseChunkLoading(world, pos);
+        }
+    }
+
     @Override
     public void onChunkUnload() {
         super.onChunkUnload();
         // Don't unregister on chunk unload - we want cross-dimension teleportation to work
+        if (world != null && !world.isRemote && mode.canReceive()) {
+            TeleportBus.invalidateReceivers(TeleportBus.Channel.GAS, frequency);
+        }
     }
 
     @Override
@@ -237,8 +268,7 @@ public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHa
         if (world != null && !world.isRemote) {
             TeleportRegistry.get(world).removeGasPipe(pos, world.provider.getDimension());
             // Release chunk loading
-            com.antigravity.advancedsorter.util.ChunkLoadingHandler.getInstance()
-                    .releaseChunkLoading(world, pos);
+            ChunkLoadingHandler.getInstance().releaseChunkLoading(world, pos);
         }
     }
 
@@ -251,7 +281,7 @@ public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHa
 
     @Override
     public void update() {
-        if (world == null || world.isRemote)
+        if (world == null || world.isRemote || sleeping)
             return;
 
         // Handle sync request from tank with rate limiting
@@ -268,123 +298,130 @@ public class TileTeleportGasPipe extends TileEntity implements ITickable, IGasHa
             updateConnections();
         }
 
-        // Try to teleport gas if we can send
+        // Teleport gas at the end of the tick if we can send
         if (mode.canSend() && tank.getStored() > 0) {
-            tryTeleportGas();
+            TeleportBus.queue(this);
         }
 
         // Try to output gas to neighbors if we can receive (and thus have gas to give)
         if (mode.canReceive() && tank.getStored() > 0) {
             distributeGas();
         }
+
+        if (!connectionsDirty && !syncRequested && tank.getStored() <= 0) {
+            sleeping = true;
+        }
     }
 
     private void distributeGas() {
         if (connections.isEmpty()) return;
 
         for (EnumFacing side : connections) {
-            TileEntity tile = world.getTileEntity(pos.offset(side));
-            if (tile == null) continue;
-
-            // Check for Gas Handler Capability
-            if (tile.hasCapability(GAS_HANDLER_CAPABILITY, side.getOpposite())) {
-                IGasHandler handler = tile.getCapability(GAS_HANDLER_CAPABILITY, side.getOpposite());
-                if (handler != null && handler.canReceiveGas(side.getOpposite(), tank.getGasType())) {
-                    int amountToSend = Math.min(tank.getStored(), TRANSFER_RATE);
-                    GasStack toSend = new GasStack(tank.getGasType(), amountToSend);
-
-                    int accepted = handler.receiveGas(side.getOpposite(), toSend, true);
-                    if (accepted > 0) {
-                        tank.draw(accepted, true);
-                        if (tank.getStored() <= 0) break;
-                    }
-                }
-            }
-            // Legacy/Direct IGasHandler check (just in case)
-            else if (tile instanceof IGasHandler) {
-                IGasHandler handler = (IGasHandler) tile;
-                if (handler.canReceiveGas(side.getOpposite(), tank.getGasType())) {
-                    int amountToSend = Math.min(tank.getStored(), TRANSFER_RATE);
-                    GasStack toSend = new GasStack(tank.getGasType(), amountToSend);
-
-                    int accepted = handler.receiveGas(side.getOpposite(), toSend, true);
-                    if (accepted > 0) {
-                        tank.draw(accepted, true);
-                        if (tank.getStored() <= 0) break;
-                    }
+            IGasHandler handler = getNeighborGasHandler(side);
+            if (handler != null && handler.canReceiveGas(side.getOpposite(), tank.getGasType())) {
+                int amountToSend = Math.min(tank.getStored(), TRANSFER_RATE);
+                GasStack toSend = new GasStack(tank.getGasType(), amountToSend);
+
+                int accepted = handler.receiveGas(side.getOpposite(), toSend, true);
+                if (accepted > 0) {
+                    tank.draw(accepted, true);
+                    if (tank.getStored() <= 0) break;
                 }
             }
         }
     }
 
-    private void tryTeleportGas() {
-        TeleportRegistry registry = TeleportRegistry.get(world);
-        List<TeleportRegistry.TeleportLocation> receivers = registry.getGasReceivers(frequency);
+    /**
+     * Gas handler of the neighbor on a side: the capability first, a tile
+     * implementing IGasHandler directly second (legacy).
+     */
+    @Nullable
+    private IGasHandler getNeighborGasHandler(EnumFacing side) {
+        IGasHandler handler = neighborCache.getCapability(GAS_HANDLER_CAPABILITY, side, side.getOpposite());
+        if (handler != null) {
+            return handler;
+        }
+        TileEntity tile = neighborCache.getTileEntity(side);
+        return tile instanceof IGasHandler ? (IGasHandler) tile : null;
+    }
+
+    @Override
+    public TeleportBus.Channel getTeleportChannel() {
+        return TeleportBus.Channel.GAS;
+    }
 
-        // If no receivers found in registry, validate and cleanup
+    /**
+     * Called by the teleport bus at the end of the tick. Sends one transfer to
+     * the first loaded receiver that takes gas, or buffers it for the unloaded
+     * ones.
+     */
+    @Override
+    public void deliverTeleports(TeleportBus.Receivers receivers) {
+        // Stale registry entries were already dropped while resolving
         if (receivers.isEmpty()) {
-            registry.validateAndCleanup(world);
             return;
         }
 
         int amountToSend = Math.min(tank.getStored(), TRANSFER_RATE);
+        if (amountToSend <= 0) {
+            return;
+        }
 
-        for (TeleportRegistry.TeleportLocation loc : receivers) {
-            if (loc.dimension == world.provider.getDimension() && loc.pos.equals(pos)) {
+        for (TileEntity te : receivers.loaded) {
+            if (te == this) {
                 continue; // Skip self
             }
-
-            WorldServer targetWorld = DimensionManager.getWorld(loc.dimension);
-            if (targetWorld == null) {
-                try {
-                    DimensionManager.initDimension(loc.dimension);
-                    targetWorld = DimensionManager.getWorld(loc.dimension);
-                } catch (Exception e) {
-                    continue;
+            TileTeleportGasPipe targetPipe = (TileTeleportGasPipe) te;
+
+            // Transfer gas
+            GasStack toTransfer = tank.draw(amountToSend, false);
+            if (toTransfer != null && toTransfer.amount > 0) {
+                int received = targetPipe.tank.receive(toTransfer, true);
+                if (received > 0) {
+                    tank.draw(received, true);
+                    targetPipe.markDirty();
+                    targetPipe.sendUpdate();
+                    ChunkLoadingHandler.getInstance().markTraffic(world, pos);
+                    return; // Only transfer to one receiver per tick
                 }
             }
+        }
 
-            if (targetWorld != null) {
-                if (!targetWorld.isBlockLoaded(loc.pos)) {
-                    targetWorld.getChunkProvider().loadChunk(loc.pos.getX() >> 4, loc.pos.getZ() >> 4);
-                }
-
-                TileEntity te = targetWorld.getTileEntity(loc.pos);
-                if (te instanceof TileTeleportGasPipe) {
-                    TileTeleportGasPipe targetPipe = (TileTeleportGasPipe) te;
-
-                    // Force target to register if not in registry or frequency mismatch
-                    if (targetPipe.getFrequency() != frequency) {
-                        // Registry has stale data - remove invalid entry
-                        registry.removeGasPipe(loc.pos, loc.dimension);
-                        continue;
-                    }
-                    if (!targetPipe.getMode().canReceive()) {
-                        continue;
-                    }
-
-                    // Ensure target is registered (handles world load race condition)
-                    targetPipe.updateRegistry();
-
-                    // Transfer gas
-                    GasStack toTransfer = tank.draw(amountToSend, false);
-                    if (toTransfer != null && toTransfer.amount > 0) {
-                        int received = targetPipe.tank.receive(toTransfer, true);
-                        if (received > 0) {
-                            tank.draw(received, true);
-                            targetPipe.markDirty();
-                            targetPipe.sendUpdate();
-                            return; // Only transfer to one receiver per tick
-                        }
-                    }
-                } else {
-                    // Tile entity is not a teleport gas pipe - remove from registry
-                    registry.removeGasPipe(loc.pos, loc.dimension);
-                }
+        // No loaded receiver took it - keep it for the unloaded ones
+        if (receivers.unloaded > 0 && tank.getGasType() != null) {
+            int buffered = TeleportRegistry.get(world).bufferGas(frequency, tank.getGasType().getName(),
+                    amountToSend);
+            if (buffered > 0) {
+                tank.draw(buffered, true);
+                ChunkLoadingHandler.getInstance().markTraffic(world, pos);
             }
         }
     }
 
+    /**
+     * Fill the tank from the frequency's buffered gas.
+     */
+    @Override
+    public void receiveBuffered(TeleportRegistry registry) {
+        if (!mode.canReceive()) {
+            return;
+        }
+        Map.Entry<String, Integer> buffered = registry.peekGas(frequency);
+        if (buffered == null) {
+            return;
+        }
+        Gas gas = GasRegistry.getGas(buffered.getKey());
+        if (gas == null) {
+            // Gas no longer registered - nothing can take it
+            registry.drainGas(frequency, buffered.getKey(), buffered.getValue());
+            return;
+        }
+        int received = tank.receive(new GasStack(gas, buffered.getValue()), true);
+        if (received > 0) {
+            registry.drainGas(frequency, buffered.getKey(), received);
+        }
+    }
+
     // ========== IGasHandler Implementation ==========
     // Note: When this pipe is in SEND mode, external machines should INSERT gas into us
     //       When this pipe is in RECEIVE mode, external machines should EXTRACT gas from us
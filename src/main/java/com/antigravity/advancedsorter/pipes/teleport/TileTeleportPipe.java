@@ -1,26 +1,33 @@
 package com.antigravity.advancedsorter.pipes.teleport;
 
+import com.antigravity.advancedsorter.pipes.PipeNetwork;
 import com.antigravity.advancedsorter.pipes.PipeTier;
 import com.antigravity.advancedsorter.pipes.TileItemPipe;
 import com.antigravity.advancedsorter.pipes.TravellingItem;
 import com.antigravity.advancedsorter.network.PacketTeleportInfo;
+import com.antigravity.advancedsorter.util.ChunkLoadingHandler;
+import com.antigravity.advancedsorter.util.TeleportBus;
 import com.antigravity.advancedsorter.util.TeleportRegistry;
 import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
-import net.minecraft.util.math.BlockPos;
-import net.minecraft.world.WorldServer;
-import net.minecraftforge.common.DimensionManager;
+import net.minecraft.world.World;
+import net.minecraftforge.items.ItemHandlerHelper;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class TileTeleportPipe extends TileItemPipe {
+public class TileTeleportPipe extends TileItemPipe implements TeleportBus.Sender {
 
     private int frequency = 0;
     private TeleportMode mode = TeleportMode.BOTH;
 
+    // Items taken at the center this tick, delivered by the teleport bus
+    private final List<TravellingItem> outgoing = new ArrayList<>();
+
     public TileTeleportPipe() {
         super(PipeTier.DIAMOND); // Teleport pipes are the fastest tier
         this.speed = 2.0f; // Sane speed to ensure center logic triggers
@@ -45,6 +52,8 @@ public class TileTeleportPipe extends TileItemPipe {
     public void setMode(TeleportMode mode) {
         this.mode = mode;
         updateRegistry();
+        updateChunkLoading();
+        PipeNetwork.markRoutesDirty(this);
         markDirty();
         sendUpdate();
         syncConnectionInfo();
@@ -55,9 +64,25 @@ public class TileTeleportPipe extends TileItemPipe {
         super.onLoad();
         if (!world.isRemote) {
             updateRegistry();
-            // Request chunk loading to keep teleporting even when player leaves
-            com.antigravity.advancedsorter.util.ChunkLoadingHandler.getInstance()
-                    .requestChunkLoading(world, pos);
+            updateChunkLoading();
+            if (mode.canReceive()) {
+                TeleportBus.queueArrival(this);
+            }
+        }
+    }
+
+    /**
+     * Keep the chunk loaded while this pipe sends, so teleporting goes on
+     * when players leave. Receivers don't need it: what they miss while
+     * unloaded is buffered for them.
+     */
+    private void updateChunkLoading() {
+        if (world == null || world.isRemote)
+            return;
+        if (mode.canSend()) {
+            ChunkLoadingHandler.getInstance().requestChunkLoading(world, pos);
+        } else {
+            ChunkLoadingHandler.getInstance().releaseChunkLoading(world, pos);
         }
     }
 
@@ -68,6 +93,9 @@ public class TileTeleportPipe extends TileItemPipe {
         // work
         // even when the source chunk is not loaded. Pipes are only unregistered on
         // invalidate().
+        if (world != null && !world.isRemote && mode.canReceive()) {
+            TeleportBus.invalidateReceivers(TeleportBus.Channel.ITEM, frequency);
+        }
     }
 
     @Override
@@ -76,8 +104,7 @@ public class TileTeleportPipe extends TileItemPipe {
         if (world != null && !world.isRemote) {
             TeleportRegistry.get(world).removePipe(pos, world.provider.getDimension());
             // Release chunk loading
-            com.antigravity.advancedsorter.util.ChunkLoadingHandler.getInstance()
-                    .releaseChunkLoading(world, pos);
+            ChunkLoadingHandler.getInstance().releaseChunkLoading(world, pos);
         }
     }
 
@@ -88,83 +115,13 @@ public class TileTeleportPipe extends TileItemPipe {
         }
     }
 
+    /**
+     * Teleport items at the center; if no receiver takes them they continue
+     * through the normal pipe logic.
+     */
     @Override
-    public void update() {
-        if (world == null)
-            return;
-
-        // CLIENT SIDE: Interpolation
-        if (world.isRemote) {
-            for (TravellingItem item : travellingItems) {
-                item.update(speed);
-            }
-            return;
-        }
-
-        // SERVER SIDE
-        boolean stateChanged = false;
-
-        if (connectionsDirty) {
-            updateConnections();
-            connectionsDirty = false;
-        }
-
-        java.util.Iterator<TravellingItem> iterator = travellingItems.iterator();
-        while (iterator.hasNext()) {
-            TravellingItem item = iterator.next();
-
-            // Teleport logic at center
-            if (item.direction == null && item.progress >= 0.5f) {
-                if (!item.teleported && tryTeleport(item)) {
-                    iterator.remove();
-                    stateChanged = true; // Item teleported away
-                    continue;
-                }
-                // If teleport failed, fallback to normal pipe logic
-                item.direction = chooseOutputDirection(item);
-                stateChanged = true; // Direction chosen
-            }
-
-            // Update position
-            boolean reachedEnd = item.update(speed);
-
-            if (reachedEnd) {
-                // Item reached end of pipe
-                if (item.direction != null) {
-                    boolean transferred = transferToNeighbor(item);
-
-                    if (transferred) {
-                        iterator.remove();
-                        stateChanged = true; // Item transferred
-                    } else {
-                        // Failed to transfer - bounce back
-                        EnumFacing oldDir = item.direction;
-                        item.direction = chooseOutputDirectionExcluding(item, oldDir);
-                        item.progress = 0.0f;
-                        item.source = oldDir.getOpposite();
-
-                        stateChanged = true; // Bounce
-
-                        if (item.direction == null) {
-                            item.direction = item.source;
-                            item.source = oldDir;
-                            if (item.direction == null) {
-                                item.progress = 0.0f;
-                            }
-                        }
-                    }
-                } else {
-                    item.progress = 0.0f;
-                    stateChanged = true; // Reset
-                }
-            }
-        }
-
-        // Only sync on state changes
-        if (stateChanged) {
-            markDirty();
-            sendUpdate();
-        }
+    protected boolean consumeAtCenter(TravellingItem item) {
+        return !item.teleported && tryTeleport(item);
     }
 
     public void syncConnectionInfo() {
@@ -199,55 +156,143 @@ public class TileTeleportPipe extends TileItemPipe {
         }
     }
 
+    /**
+     * Queue an item for the teleport bus if the frequency has any receiver.
+     * Queued items of the same type travel as one stack.
+     */
     private boolean tryTeleport(TravellingItem item) {
-        if (!mode.canSend()) {
+        if (!mode.canSend() || !hasOtherReceiver()) {
             return false;
         }
 
-        TeleportRegistry registry = TeleportRegistry.get(world);
-        List<TeleportRegistry.TeleportLocation> receivers = registry.getReceivers(frequency);
-
-        if (receivers.isEmpty()) {
-            return false;
+        for (TravellingItem queued : outgoing) {
+            int space = queued.stack.getMaxStackSize() - queued.stack.getCount();
+            if (space <= 0 || !ItemHandlerHelper.canItemStacksStack(queued.stack, item.stack))
+                continue;
+            int moved = Math.min(space, item.stack.getCount());
+            queued.stack.grow(moved);
+            item.stack.shrink(moved);
+            queued.hops = Math.max(queued.hops, item.hops);
+            queued.born = Math.min(queued.born, item.born);
+            if (item.stack.isEmpty()) {
+                break;
+            }
+        }
+        if (!item.stack.isEmpty()) {
+            outgoing.add(item);
         }
+        TeleportBus.queue(this);
+        return true;
+    }
 
-        for (TeleportRegistry.TeleportLocation loc : receivers) {
-            if (loc.dimension == world.provider.getDimension() && loc.pos.equals(pos)) {
-                continue; // Skip self
+    private boolean hasOtherReceiver() {
+        TeleportBus.Receivers receivers = TeleportBus.resolveReceivers(world, TeleportBus.Channel.ITEM, frequency);
+        if (receivers.unloaded > 0) {
+            return true;
+        }
+        for (TileEntity te : receivers.loaded) {
+            if (te != this) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            // Get target world, initializing if necessary
-            WorldServer targetWorld = DimensionManager.getWorld(loc.dimension);
-            if (targetWorld == null) {
-                try {
-                    DimensionManager.initDimension(loc.dimension);
-                    targetWorld = DimensionManager.getWorld(loc.dimension);
-                } catch (Exception e) {
-                    continue;
-                }
+    @Override
+    public TeleportBus.Channel getTeleportChannel() {
+        return TeleportBus.Channel.ITEM;
+    }
+
+    /**
+     * Hand the queued items to the receivers. Items no loaded receiver has
+     * room for are buffered for the unloaded ones; the rest comes back into
+     * this pipe and continues as normal items.
+     */
+    @Override
+    public void deliverTeleports(TeleportBus.Receivers receivers) {
+        boolean moved = false;
+        for (TravellingItem item : outgoing) {
+            if (deliver(world, frequency, receivers, item.stack, this, item)) {
+                moved = true;
+                continue;
             }
+            if (isInvalid()) {
+                dropItem(item);
+            } else {
+                receiveItem(item.stack, null, true, null, 0, item);
+            }
+        }
+        outgoing.clear();
+        if (moved) {
+            ChunkLoadingHandler.getInstance().markTraffic(world, pos);
+        }
+    }
 
-            if (targetWorld != null) {
-                // Ensure chunk is loaded and stays loaded for this tick
-                if (!targetWorld.isBlockLoaded(loc.pos)) {
-                    targetWorld.getChunkProvider().loadChunk(loc.pos.getX() >> 4, loc.pos.getZ() >> 4);
-                }
+    /**
+     * Take buffered items into this pipe while it has room.
+     */
+    @Override
+    public void receiveBuffered(TeleportRegistry registry) {
+        if (!mode.canReceive()) {
+            return;
+        }
+        while (!isFull() && registry.hasBufferedItems(frequency)) {
+            receiveItem(registry.pollItem(frequency), null, true, null, 0, null);
+        }
+    }
 
-                TileEntity te = targetWorld.getTileEntity(loc.pos);
-                if (te instanceof TileTeleportPipe) {
-                    TileTeleportPipe targetPipe = (TileTeleportPipe) te;
-                    if (targetPipe.getFrequency() != frequency) {
-                        continue;
-                    }
-                    // Receive item at center
-                    targetPipe.receiveItem(item.stack, null, true);
-                    return true;
-                }
+    /**
+     * Deliver a stack to the first loaded receiving teleport pipe on a
+     * frequency that has room, in any dimension, right away. The item arrives
+     * at the receiver's center. If none has room but some aren't loaded, the
+     * stack is buffered for them as far as the buffer allows; what doesn't fit
+     * stays in the stack.
+     *
+     * @param self     sending pipe to skip, or null
+     * @param previous item the stack comes from, to carry its hop count and age
+     *                 over, or null to start fresh
+     * @return true if the whole stack was taken
+     */
+    public static boolean sendToFrequency(World world, int frequency, ItemStack stack, @Nullable TileEntity self,
+            @Nullable TravellingItem previous) {
+        TeleportBus.Receivers receivers = TeleportBus.resolveReceivers(world, TeleportBus.Channel.ITEM, frequency);
+        return deliver(world, frequency, receivers, stack, self, previous);
+    }
+
+    private static boolean deliver(World world, int frequency, TeleportBus.Receivers receivers, ItemStack stack,
+            @Nullable TileEntity self, @Nullable TravellingItem previous) {
+        return deliver(receivers.loaded, stack, self, previous)
+                || (receivers.unloaded > 0 && TeleportRegistry.get(world).bufferItem(frequency, stack).isEmpty());
+    }
+
+    private static boolean deliver(List<TileEntity> receivers, ItemStack stack, @Nullable TileEntity self,
+            @Nullable TravellingItem previous) {
+        for (TileEntity te : receivers) {
+            TileTeleportPipe targetPipe = (TileTeleportPipe) te;
+            if (te == self || targetPipe.isFull()) {
+                continue;
             }
+            // Receive item at center
+            targetPipe.receiveItem(stack, null, true, null, 0, previous);
+            return true;
         }
         return false;
     }
 
+    /**
+     * Sending teleport pipes swallow items at their center, so the routing
+     * tables treat them as destinations.
+     */
+    @Override
+    protected boolean isRoutingSink() {
+        return mode.canSend();
+    }
+
+    @Override
+    protected boolean isPlainTransport() {
+        return false;
+    }
+
     @Override
     protected EnumFacing chooseOutputDirection(TravellingItem item) {
         // Fallback to normal pipe logic
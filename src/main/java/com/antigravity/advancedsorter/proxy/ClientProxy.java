@@ -31,6 +31,9 @@ import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
 import net.minecraftforge.common.MinecraftForge;
 import com.antigravity.advancedsorter.client.KeyInputHandler;
 import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.common.network.FMLNetworkEvent;
+import net.minecraft.client.Minecraft;
+import com.antigravity.advancedsorter.network.PipeItemClientCache;
 
 @Mod.EventBusSubscriber(Side.CLIENT)
 public class ClientProxy extends CommonProxy {
@@ -232,4 +235,10 @@ public class ClientProxy extends CommonProxy {
             }
         }
     }
+
+    @SubscribeEvent
+    public static void onClientDisconnect(FMLNetworkEvent.ClientDisconnectionFromServerEvent event) {
+        // Pipe item stack ids are assigned per server session
+        Minecraft.getMinecraft().addScheduledTask(PipeItemClientCache::clear);
+    }
 }
@@ -19,13 +19,15 @@ import net.minecraftforge.fluids.IFluidBlock;
 import net.minecraftforge.fluids.capability.CapabilityFluidHandler;
 import net.minecraftforge.fluids.capability.IFluidHandler;
 import com.antigravity.advancedsorter.pipes.fluid.IFluidSyncable;
+import com.antigravity.advancedsorter.util.NeighborCapabilityCache;
 
 import javax.annotation.Nullable;
 
-public class TileAdvancedPump extends TileEntity implements ITickable, IFluidSyncable {
+public class TileAdvancedPump extends TileEntity implements ITickable, IFluidSyncable, NeighborCapabilityCache.Provider {
 
     private final SyncingFluidTank tank = new SyncingFluidTank(16000, this);
     private final EnergyStorage energyStorage = new EnergyStorage(100000, 1000, 1000);
+    private final NeighborCapabilityCache neighborCache = new NeighborCapabilityCache(this);
 
     private int pumpRateLimit = 1000;
     private int redstoneMode = 0;
@@ -112,21 +114,23 @@ public class TileAdvancedPump extends TileEntity implements ITickable, IFluidSyn
             return;
 
         for (EnumFacing facing : EnumFacing.VALUES) {
-            TileEntity te = world.getTileEntity(pos.offset(facing));
-            if (te != null && te.hasCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, facing.getOpposite())) {
-                IFluidHandler handler = te.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY,
-                        facing.getOpposite());
-                if (handler != null) {
-                    FluidStack drained = tank.drain(100, false);
-                    if (drained != null) {
-                        int filled = handler.fill(drained, true);
-                        tank.drain(filled, true);
-                    }
+            IFluidHandler handler = neighborCache.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY,
+                    facing, facing.getOpposite());
+            if (handler != null) {
+                FluidStack drained = tank.drain(100, false);
+                if (drained != null) {
+                    int filled = handler.fill(drained, true);
+                    tank.drain(filled, true);
                 }
             }
         }
     }
 
+    @Override
+    public NeighborCapabilityCache getNeighborCache() {
+        return neighborCache;
+    }
+
     private boolean findAndExtractFluid() {
         for (int i = 0; i < 64; i++) {
             BlockPos targetPos = pos.add(scanX, scanY, scanZ);
@@ -5,7 +5,6 @@ import net.minecraft.block.state.IBlockState;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.tileentity.TileEntity;
-import net.minecraft.util.ITickable;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraftforge.common.util.Constants;
@@ -17,7 +16,7 @@ import java.util.List;
  * Tile entity for pump controller - controls extraction pipes remotely by
  * frequency.
  */
-public class TilePumpController extends TileEntity implements ITickable {
+public class TilePumpController extends TileEntity {
 
     public static class PumpPreset {
         public String name;
@@ -53,12 +52,17 @@ public class TilePumpController extends TileEntity implements ITickable {
     }
 
     @Override
-    public void update() {
-        if (world == null || world.isRemote) {
-            return;
+    public void onLoad() {
+        if (world != null && !world.isRemote) {
+            pushPresets();
         }
+    }
 
-        // Update registry with our pumping state for each preset
+    /**
+     * Push our pumping state for each preset to the registry, which tells
+     * the extraction pipes on changed frequencies right away.
+     */
+    private void pushPresets() {
         PumpRegistry registry = PumpRegistry.get(world);
         for (PumpPreset preset : presets) {
             registry.setPumpingEnabled(preset.frequency, preset.enabled);
@@ -79,6 +83,9 @@ public class TilePumpController extends TileEntity implements ITickable {
         }
 
         this.presets = presets;
+        if (world != null && !world.isRemote) {
+            pushPresets();
+        }
         markDirty();
         sendUpdate();
     }
@@ -102,7 +109,11 @@ public class TilePumpController extends TileEntity implements ITickable {
 
     public void togglePreset(int index) {
         if (index >= 0 && index < presets.size()) {
-            presets.get(index).enabled = !presets.get(index).enabled;
+            PumpPreset preset = presets.get(index);
+            preset.enabled = !preset.enabled;
+            if (world != null && !world.isRemote) {
+                PumpRegistry.get(world).setPumpingEnabled(preset.frequency, preset.enabled);
+            }
             markDirty();
             sendUpdate();
         }
@@ -2,6 +2,7 @@ package com.antigravity.advancedsorter.tanks;
 
 import com.antigravity.advancedsorter.pipes.fluid.IFluidSyncable;
 import com.antigravity.advancedsorter.pipes.fluid.SyncingFluidTank;
+import com.antigravity.advancedsorter.util.NeighborCapabilityCache;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
@@ -18,7 +19,7 @@ import javax.annotation.Nullable;
 import java.util.EnumMap;
 import java.util.Map;
 
-public class TileFluidTank extends TileEntity implements ITickable, IFluidSyncable {
+public class TileFluidTank extends TileEntity implements ITickable, IFluidSyncable, NeighborCapabilityCache.Provider {
 
     public enum SideMode {
         DISABLED(0, "X"),
@@ -77,14 +78,16 @@ public class TileFluidTank extends TileEntity implements ITickable, IFluidSyncab
     private int cachedOutputCount = 0;
     private boolean outputCountDirty = true;
 
-    // Optimization: Tick skipping and neighbor caching
+    // Optimization: Tick skipping and neighbor caching (invalidated by BlockFluidTank)
     private int tickCounter = 0;
-    private final Map<EnumFacing, IFluidHandler> cachedNeighbors = new EnumMap<>(EnumFacing.class);
-    private int neighborCacheCooldown = 0;
+    private final NeighborCapabilityCache neighborCache = new NeighborCapabilityCache(this);
 
     // Track viewers for smart sync
     private int viewerCount = 0;
 
+    // Tanks with nothing to push or sync skip their tick until woken
+    private boolean sleeping = false;
+
     public TileFluidTank() {
         this(TankTier.BASIC);
     }
@@ -115,19 +118,11 @@ public class TileFluidTank extends TileEntity implements ITickable, IFluidSyncab
 
     @Override
     public void update() {
-        if (world == null || world.isRemote)
+        if (world == null || world.isRemote || sleeping)
             return;
 
         tickCounter++;
 
-        // Refresh neighbor cache every 100 ticks (5 seconds) to handle block updates
-        if (neighborCacheCooldown > 0) {
-            neighborCacheCooldown--;
-        } else {
-            cachedNeighbors.clear();
-            neighborCacheCooldown = 100;
-        }
-
         // Tick Skipping: Only push fluid every 5 ticks (4 times per second)
         // This reduces CPU load by 80% for transfer operations
         if (tickCounter % 5 == 0 && cachedOutputCount > 0 && tank.getFluidAmount() > 0) {
@@ -143,6 +138,22 @@ public class TileFluidTank extends TileEntity implements ITickable, IFluidSyncab
             syncCooldown = 10;
             sendUpdate();
         }
+
+        if (!syncRequested && (cachedOutputCount == 0 || tank.getFluidAmount() <= 0)) {
+            sleeping = true;
+        }
+    }
+
+    /**
+     * Resume ticking after the contents or side modes changed.
+     */
+    public void wakeUp() {
+        sleeping = false;
+    }
+
+    @Override
+    public void onTankContentsChanged() {
+        wakeUp();
     }
 
     private void pushFluid() {
@@ -155,17 +166,8 @@ public class TileFluidTank extends TileEntity implements ITickable, IFluidSyncab
             if (sideModes.get(face) == SideMode.OUTPUT && tank.getFluidAmount() > 0) {
 
                 // Optimization: Use cached neighbor handler
-                IFluidHandler handler = cachedNeighbors.get(face);
-
-                // If not in cache, try to find it
-                if (handler == null && !cachedNeighbors.containsKey(face)) {
-                    TileEntity neighbor = world.getTileEntity(pos.offset(face));
-                    if (neighbor != null && neighbor.hasCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, face.getOpposite())) {
-                        handler = neighbor.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY, face.getOpposite());
-                    }
-                    // Cache the result (even if null, to avoid re-querying empty air blocks repeatedly)
-                    cachedNeighbors.put(face, handler);
-                }
+                IFluidHandler handler = neighborCache.getCapability(CapabilityFluidHandler.FLUID_HANDLER_CAPABILITY,
+                        face, face.getOpposite());
 
                 if (handler != null) {
                     FluidStack toDrain = tank.drain(pushPerSide, false);
@@ -173,9 +175,6 @@ public class TileFluidTank extends TileEntity implements ITickable, IFluidSyncab
                         int filled = handler.fill(toDrain, true);
                         if (filled > 0) {
                             tank.drain(filled, true);
-                        } else {
-                            // If filling failed completely, maybe the neighbor is full or invalid
-                            // We keep it in cache until the 5-second refresh cycle
                         }
                     }
                 }
@@ -194,6 +193,7 @@ public class TileFluidTank extends TileEntity implements ITickable, IFluidSyncab
     public void setSideMode(EnumFacing face, SideMode mode) {
         sideModes.put(face, mode);
         rebuildHandlerCache();
+        wakeUp();
         markDirty();
         sendUpdate();
     }
@@ -219,6 +219,11 @@ public class TileFluidTank extends TileEntity implements ITickable, IFluidSyncab
         return tank;
     }
 
+    @Override
+    public NeighborCapabilityCache getNeighborCache() {
+        return neighborCache;
+    }
+
     // Viewer tracking for smart sync
     public void addViewer() {
         viewerCount++;
@@ -240,6 +245,7 @@ public class TileFluidTank extends TileEntity implements ITickable, IFluidSyncab
     public void readFromItemNBT(NBTTagCompound compound) {
         if (compound.hasKey("Tank")) {
             tank.readFromNBT(compound.getCompoundTag("Tank"));
+            wakeUp();
         }
     }
 
@@ -257,6 +263,7 @@ public class TileFluidTank extends TileEntity implements ITickable, IFluidSyncab
     @Override
     public void requestClientSync() {
         this.syncRequested = true;
+        wakeUp();
     }
 
     private void sendUpdate() {
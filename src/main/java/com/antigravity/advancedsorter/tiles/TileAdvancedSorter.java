@@ -1,5 +1,6 @@
 package com.antigravity.advancedsorter.tiles;
 
+import com.antigravity.advancedsorter.util.NeighborCapabilityCache;
 import com.antigravity.advancedsorter.util.RuleSerializer;
 import com.antigravity.advancedsorter.util.SortRule;
 import buildcraft.api.transport.IInjectable;
@@ -8,7 +9,6 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.ITickable;
-import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.common.capabilities.Capability;
 import net.minecraftforge.common.util.Constants;
 import net.minecraft.network.NetworkManager;
@@ -22,7 +22,7 @@ import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 
-public class TileAdvancedSorter extends TileEntity implements ITickable {
+public class TileAdvancedSorter extends TileEntity implements ITickable, NeighborCapabilityCache.Provider {
 
     // Internal buffer: 9 slots
     private final ItemStackHandler inventory = new ItemStackHandler(9) {
@@ -37,6 +37,9 @@ public class TileAdvancedSorter extends TileEntity implements ITickable {
     public SortRule.DistributionMode distributionMode = SortRule.DistributionMode.FIRST_MATCH;
     private int roundRobinIndex = 0; // Used for Round Robin distribution
 
+    // Neighbor tiles and their item handlers (invalidated by BlockAdvancedSorter)
+    private final NeighborCapabilityCache neighborCache = new NeighborCapabilityCache(this);
+
     public TileAdvancedSorter() {
     }
 
@@ -127,8 +130,7 @@ public class TileAdvancedSorter extends TileEntity implements ITickable {
      * @return remaining items that couldn't be inserted
      */
     private ItemStack pushItemToSide(ItemStack stack, EnumFacing side) {
-        BlockPos targetPos = pos.offset(side);
-        TileEntity neighbor = world.getTileEntity(targetPos);
+        TileEntity neighbor = neighborCache.getTileEntity(side);
 
         if (neighbor == null) {
             return stack; // No neighbor, keep in buffer
@@ -137,24 +139,20 @@ public class TileAdvancedSorter extends TileEntity implements ITickable {
         EnumFacing into = side.getOpposite();
 
         // Try 1: Standard IItemHandler capability (works with most mods)
-        if (neighbor.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, into)) {
-            IItemHandler handler = neighbor.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, into);
-            if (handler != null) {
-                ItemStack result = ItemHandlerHelper.insertItem(handler, stack, false);
-                if (result.getCount() < stack.getCount()) {
-                    return result; // Successfully inserted some items
-                }
+        IItemHandler handler = neighborCache.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, side, into);
+        if (handler != null) {
+            ItemStack result = ItemHandlerHelper.insertItem(handler, stack, false);
+            if (result.getCount() < stack.getCount()) {
+                return result; // Successfully inserted some items
             }
         }
 
         // Try 2: IItemHandler on null side (some mods)
-        if (neighbor.hasCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, null)) {
-            IItemHandler handler = neighbor.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, null);
-            if (handler != null) {
-                ItemStack result = ItemHandlerHelper.insertItem(handler, stack, false);
-                if (result.getCount() < stack.getCount()) {
-                    return result; // Successfully inserted some items
-                }
+        handler = neighborCache.getCapability(CapabilityItemHandler.ITEM_HANDLER_CAPABILITY, side, null);
+        if (handler != null) {
+            ItemStack result = ItemHandlerHelper.insertItem(handler, stack, false);
+            if (result.getCount() < stack.getCount()) {
+                return result; // Successfully inserted some items
             }
         }
 
@@ -178,6 +176,7 @@ public class TileAdvancedSorter extends TileEntity implements ITickable {
     public boolean hasInventoryOnSide(EnumFacing side) {
         if (world == null)
             return false;
+        // Called from the GUI on the client, where blocks get no neighbor updates - no cache
         TileEntity neighbor = world.getTileEntity(pos.offset(side));
         if (neighbor == null)
             return false;
@@ -282,6 +281,11 @@ public class TileAdvancedSorter extends TileEntity implements ITickable {
         return super.getCapability(capability, facing);
     }
 
+    @Override
+    public NeighborCapabilityCache getNeighborCache() {
+        return neighborCache;
+    }
+
     /**
      * Get the real inventory for internal use (GUI, slots)
      */
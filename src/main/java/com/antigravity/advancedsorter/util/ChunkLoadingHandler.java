@@ -1,10 +1,12 @@
 package com.antigravity.advancedsorter.util;
 
 import com.antigravity.advancedsorter.AdvancedSorterMod;
-import com.google.common.collect.ImmutableSetMultimap;
-import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.SetMultimap;
+import com.antigravity.advancedsorter.ModConfig;
+import com.antigravity.advancedsorter.pipes.fluid.teleport.TileTeleportFluidPipe;
+import com.antigravity.advancedsorter.pipes.gas.teleport.TileTeleportGasPipe;
+import com.antigravity.advancedsorter.pipes.teleport.TileTeleportPipe;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
@@ -12,22 +14,55 @@ import net.minecraftforge.common.ForgeChunkManager;
 import net.minecraftforge.common.ForgeChunkManager.LoadingCallback;
 import net.minecraftforge.common.ForgeChunkManager.Ticket;
 import net.minecraftforge.common.ForgeChunkManager.Type;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Handles chunk loading for teleport pipes.
  * Keeps chunks with teleport pipes loaded so they can operate across
  * dimensions.
+ *
+ * Chunks are reference counted: all pipes in a chunk share one forced
+ * entry, and each world forces its chunks through a small pool of tickets
+ * (each ticket holds as many chunks as Forge allows). Optionally only
+ * chunks whose pipes had traffic recently stay forced.
  */
+@Mod.EventBusSubscriber(modid = AdvancedSorterMod.MODID)
 public class ChunkLoadingHandler implements LoadingCallback {
 
+    private static final int IDLE_CHECK_INTERVAL = 1200; // 1 minute
+
     private static ChunkLoadingHandler INSTANCE;
 
-    // Map of BlockPos -> Ticket for active chunk loaders
-    private final Map<BlockPos, Ticket> activeTickets = new HashMap<>();
+    /**
+     * A chunk with teleport pipes that want it loaded.
+     */
+    private static class ChunkEntry {
+        final Set<BlockPos> pipes = new HashSet<>();
+        Ticket ticket; // Ticket forcing the chunk, null if not forced
+        long lastTraffic;
+    }
+
+    /**
+     * Chunks and tickets of one dimension.
+     */
+    private static class DimensionChunks {
+        final Map<ChunkPos, ChunkEntry> chunks = new HashMap<>();
+        final List<Ticket> tickets = new ArrayList<>();
+    }
+
+    private final Map<Integer, DimensionChunks> dimensions = new HashMap<>();
+    private boolean warnedTicketLimit = false;
 
     public static ChunkLoadingHandler getInstance() {
         if (INSTANCE == null) {
@@ -42,32 +77,44 @@ public class ChunkLoadingHandler implements LoadingCallback {
 
     @Override
     public void ticketsLoaded(List<Ticket> tickets, World world) {
-        // Re-establish chunk loading from saved tickets
+        // Re-establish chunk loading from saved tickets, then let the pool
+        // hand out the chunks again
+        List<BlockPos> pipes = new ArrayList<>();
         for (Ticket ticket : tickets) {
             NBTTagCompound data = ticket.getModData();
-            if (data.hasKey("PipeX")) {
-                int x = data.getInteger("PipeX");
-                int y = data.getInteger("PipeY");
-                int z = data.getInteger("PipeZ");
-                BlockPos pos = new BlockPos(x, y, z);
-
-                // Check if the tile entity still exists
-                if (world.isBlockLoaded(pos) || forceLoadAndCheck(ticket, pos, world)) {
-                    activeTickets.put(pos, ticket);
-                    ChunkPos chunkPos = new ChunkPos(pos);
-                    ForgeChunkManager.forceChunk(ticket, chunkPos);
-                } else {
-                    // Tile entity no longer exists, release ticket
-                    ForgeChunkManager.releaseTicket(ticket);
+            if (data.hasKey("Pipes")) {
+                int[] packed = data.getIntArray("Pipes");
+                for (int i = 0; i < PackedPositions.count(packed); i++) {
+                    pipes.add(PackedPositions.get(packed, i));
                 }
+            } else if (data.hasKey("PipeX")) {
+                // One ticket per pipe (older saves)
+                pipes.add(new BlockPos(data.getInteger("PipeX"), data.getInteger("PipeY"),
+                        data.getInteger("PipeZ")));
+            }
+            ForgeChunkManager.releaseTicket(ticket);
+        }
+
+        long now = world.getTotalWorldTime();
+        for (BlockPos pos : pipes) {
+            ChunkEntry entry = addPipe(world, pos);
+            entry.lastTraffic = now; // Give restored chunks a full idle period
+            if (entry.ticket == null) {
+                force(world, new ChunkPos(pos), entry);
+            }
+        }
+
+        // Drop pipes that are gone (the chunks are forced now, so this loads them)
+        for (BlockPos pos : pipes) {
+            if (!isTeleportPipe(world.getTileEntity(pos))) {
+                releaseChunkLoading(world, pos);
             }
         }
     }
 
-    private boolean forceLoadAndCheck(Ticket ticket, BlockPos pos, World world) {
-        ChunkPos chunkPos = new ChunkPos(pos);
-        ForgeChunkManager.forceChunk(ticket, chunkPos);
-        return world.getTileEntity(pos) != null;
+    private static boolean isTeleportPipe(@Nullable TileEntity te) {
+        return te instanceof TileTeleportPipe || te instanceof TileTeleportFluidPipe
+                || te instanceof TileTeleportGasPipe;
     }
 
     /**
@@ -77,50 +124,166 @@ public class ChunkLoadingHandler implements LoadingCallback {
         if (world.isRemote)
             return;
 
-        // Already have a ticket for this position
-        if (activeTickets.containsKey(pos)) {
-            return;
+        ChunkEntry entry = addPipe(world, pos);
+        if (entry.pipes.size() == 1) {
+            entry.lastTraffic = world.getTotalWorldTime();
+        }
+        if (entry.ticket == null) {
+            force(world, new ChunkPos(pos), entry);
+        } else {
+            saveTicket(world, entry.ticket);
         }
+    }
 
-        Ticket ticket = ForgeChunkManager.requestTicket(
-                AdvancedSorterMod.instance,
-                world,
-                Type.NORMAL);
+    /**
+     * Release chunk loading for a teleport pipe at the given position.
+     */
+    public void releaseChunkLoading(World world, BlockPos pos) {
+        if (world.isRemote)
+            return;
 
-        if (ticket == null) {
+        DimensionChunks dim = dimensions.get(world.provider.getDimension());
+        ChunkPos chunkPos = new ChunkPos(pos);
+        ChunkEntry entry = dim == null ? null : dim.chunks.get(chunkPos);
+        if (entry == null || !entry.pipes.remove(pos)) {
             return;
         }
 
-        // Store position in ticket data for persistence
-        NBTTagCompound data = ticket.getModData();
-        data.setInteger("PipeX", pos.getX());
-        data.setInteger("PipeY", pos.getY());
-        data.setInteger("PipeZ", pos.getZ());
+        if (entry.pipes.isEmpty()) {
+            dim.chunks.remove(chunkPos);
+            unforce(world, chunkPos, entry);
+        } else if (entry.ticket != null) {
+            saveTicket(world, entry.ticket);
+        }
+    }
 
-        // Force load the chunk
+    /**
+     * Note that the teleport pipe at pos moved something. Re-forces its chunk
+     * if it was dropped for being idle.
+     */
+    public void markTraffic(World world, BlockPos pos) {
+        DimensionChunks dim = dimensions.get(world.provider.getDimension());
         ChunkPos chunkPos = new ChunkPos(pos);
-        ForgeChunkManager.forceChunk(ticket, chunkPos);
-
-        activeTickets.put(pos, ticket);
+        ChunkEntry entry = dim == null ? null : dim.chunks.get(chunkPos);
+        if (entry == null) {
+            return;
+        }
+        entry.lastTraffic = world.getTotalWorldTime();
+        if (entry.ticket == null) {
+            force(world, chunkPos, entry);
+        }
     }
 
     /**
-     * Release chunk loading for a teleport pipe at the given position.
+     * Check if chunk loading is active for a position.
      */
-    public void releaseChunkLoading(World world, BlockPos pos) {
-        if (world.isRemote)
-            return;
+    public boolean isChunkLoadingActive(World world, BlockPos pos) {
+        DimensionChunks dim = dimensions.get(world.provider.getDimension());
+        ChunkEntry entry = dim == null ? null : dim.chunks.get(new ChunkPos(pos));
+        return entry != null && entry.ticket != null;
+    }
 
-        Ticket ticket = activeTickets.remove(pos);
-        if (ticket != null) {
+    private ChunkEntry addPipe(World world, BlockPos pos) {
+        DimensionChunks dim = dimensions.computeIfAbsent(world.provider.getDimension(),
+                d -> new DimensionChunks());
+        ChunkEntry entry = dim.chunks.computeIfAbsent(new ChunkPos(pos), c -> new ChunkEntry());
+        entry.pipes.add(pos.toImmutable());
+        return entry;
+    }
+
+    private void force(World world, ChunkPos chunkPos, ChunkEntry entry) {
+        DimensionChunks dim = dimensions.get(world.provider.getDimension());
+        Ticket ticket = null;
+        for (Ticket pooled : dim.tickets) {
+            if (pooled.getChunkList().size() < pooled.getChunkListDepth()) {
+                ticket = pooled;
+                break;
+            }
+        }
+        if (ticket == null) {
+            ticket = ForgeChunkManager.requestTicket(AdvancedSorterMod.instance, world, Type.NORMAL);
+            if (ticket == null) {
+                if (!warnedTicketLimit) {
+                    warnedTicketLimit = true;
+                    AdvancedSorterMod.logger.warn("Out of chunk loading tickets, teleport pipe chunks in "
+                            + "dimension {} won't stay loaded", world.provider.getDimension());
+                }
+                return;
+            }
+            dim.tickets.add(ticket);
+        }
+
+        entry.ticket = ticket;
+        ForgeChunkManager.forceChunk(ticket, chunkPos);
+        saveTicket(world, ticket);
+    }
+
+    private void unforce(World world, ChunkPos chunkPos, ChunkEntry entry) {
+        Ticket ticket = entry.ticket;
+        if (ticket == null) {
+            return;
+        }
+        entry.ticket = null;
+        ForgeChunkManager.unforceChunk(ticket, chunkPos);
+        if (ticket.getChunkList().isEmpty()) {
+            dimensions.get(world.provider.getDimension()).tickets.remove(ticket);
             ForgeChunkManager.releaseTicket(ticket);
+        } else {
+            saveTicket(world, ticket);
         }
     }
 
     /**
-     * Check if chunk loading is active for a position.
+     * Store the pipes of all chunks a ticket forces, to restore them when
+     * the world loads.
+     */
+    private void saveTicket(World world, Ticket ticket) {
+        DimensionChunks dim = dimensions.get(world.provider.getDimension());
+        List<BlockPos> pipes = new ArrayList<>();
+        for (ChunkPos chunkPos : ticket.getChunkList()) {
+            ChunkEntry entry = dim.chunks.get(chunkPos);
+            if (entry != null) {
+                pipes.addAll(entry.pipes);
+            }
+        }
+        ticket.getModData().setIntArray("Pipes", PackedPositions.pack(pipes));
+    }
+
+    /**
+     * Drop the forced entries of chunks without traffic for longer than the
+     * configured idle time. The pipes stay counted; traffic forces the chunk
+     * again.
      */
-    public boolean isChunkLoadingActive(BlockPos pos) {
-        return activeTickets.containsKey(pos);
+    private void unforceIdle(World world) {
+        DimensionChunks dim = dimensions.get(world.provider.getDimension());
+        if (dim == null) {
+            return;
+        }
+        long idleTicks = ModConfig.pipes.chunkLoadingIdleMinutes * 1200L;
+        long now = world.getTotalWorldTime();
+        for (Map.Entry<ChunkPos, ChunkEntry> chunk : dim.chunks.entrySet()) {
+            ChunkEntry entry = chunk.getValue();
+            if (entry.ticket != null && now - entry.lastTraffic > idleTicks) {
+                unforce(world, chunk.getKey(), entry);
+            }
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || event.world.isRemote
+                || ModConfig.pipes.chunkLoadingIdleMinutes <= 0
+                || event.world.getTotalWorldTime() % IDLE_CHECK_INTERVAL != 0) {
+            return;
+        }
+        getInstance().unforceIdle(event.world);
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (!event.getWorld().isRemote && INSTANCE != null) {
+            // Forge drops the world's tickets with it
+            INSTANCE.dimensions.remove(event.getWorld().provider.getDimension());
+        }
     }
 }
@@ -0,0 +1,233 @@
+package com.antigravity.advancedsorter.util;
+
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.IBlockAccess;
+import net.minecraft.world.World;
+import net.minecraftforge.common.capabilities.Capability;
+
+import javax.annotation.Nullable;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Caches the neighbor tile entities of a tile and the capabilities they
+ * expose, per face and per capability, so transfers don't have to look up
+ * the tile entity map every time.
+ *
+ * Entries are dropped when the owning block reports a neighbor change (see
+ * {@link #onNeighborChanged}), when a cached neighbor has been invalidated,
+ * or when a neighbor in another chunk is no longer loaded. Unloaded
+ * neighbors are never cached. Tile changes of a neighbor (see
+ * {@link #onNeighborTileChanged}) only drop its capabilities.
+ */
+public class NeighborCapabilityCache {
+
+    /**
+     * Implemented by tiles that own a cache, so their blocks can invalidate it.
+     */
+    public interface Provider {
+        NeighborCapabilityCache getNeighborCache();
+    }
+
+    private static final int SIDES = 7; // 6 faces + null side
+    private static final long FACE_BITS = (1L << SIDES) - 1;
+
+    private final TileEntity owner;
+    private final TileEntity[] neighbors = new TileEntity[6];
+    private int resolvedMask = 0;
+    private int crossChunkMask = -1; // Faces whose neighbor is in another chunk (lazy)
+    private final int[] changeCounts = new int[6];
+
+    private final Map<Capability<?>, Entry> capabilities = new IdentityHashMap<>();
+
+    private static class Entry {
+        final Object[] handlers = new Object[6 * SIDES];
+        long resolved = 0;
+    }
+
+    public NeighborCapabilityCache(TileEntity owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * Get the tile entity next to the owner on a face, or null if there is none
+     * or its chunk isn't loaded.
+     */
+    @Nullable
+    public TileEntity getTileEntity(EnumFacing face) {
+        World world = owner.getWorld();
+        if (world == null) {
+            return null;
+        }
+
+        int index = face.getIndex();
+        int bit = 1 << index;
+
+        if ((getCrossChunkMask() & bit) != 0 && !world.isBlockLoaded(owner.getPos().offset(face))) {
+            invalidate(face);
+            return null;
+        }
+
+        if ((resolvedMask & bit) != 0) {
+            TileEntity cached = neighbors[index];
+            if (cached == null || !cached.isInvalid()) {
+                return cached;
+            }
+            invalidate(face);
+        }
+
+        BlockPos neighborPos = owner.getPos().offset(face);
+        if (!world.isBlockLoaded(neighborPos)) {
+            return null;
+        }
+        TileEntity tile = world.getTileEntity(neighborPos);
+        neighbors[index] = tile;
+        resolvedMask |= bit;
+        return tile;
+    }
+
+    /**
+     * Get a capability of the neighbor on a face, queried on the given side of
+     * the neighbor. Returns null if the neighbor doesn't have it.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T getCapability(Capability<T> capability, EnumFacing face, @Nullable EnumFacing side) {
+        TileEntity tile = getTileEntity(face);
+        if (tile == null || capability == null) {
+            return null;
+        }
+
+        Entry entry = capabilities.get(capability);
+        if (entry == null) {
+            entry = new Entry();
+            capabilities.put(capability, entry);
+        }
+
+        int index = face.getIndex() * SIDES + (side == null ? 6 : side.getIndex());
+        long bit = 1L << index;
+        if ((entry.resolved & bit) == 0) {
+            entry.handlers[index] = tile.hasCapability(capability, side) ? tile.getCapability(capability, side) : null;
+            entry.resolved |= bit;
+        }
+        return (T) entry.handlers[index];
+    }
+
+    /**
+     * Get a capability of the neighbor on a face, trying the side facing us
+     * first and the null side second.
+     */
+    @Nullable
+    public <T> T getCapability(Capability<T> capability, EnumFacing face) {
+        T handler = getCapability(capability, face, face.getOpposite());
+        if (handler != null) {
+            return handler;
+        }
+        return getCapability(capability, face, null);
+    }
+
+    public void invalidate(EnumFacing face) {
+        int index = face.getIndex();
+        neighbors[index] = null;
+        resolvedMask &= ~(1 << index);
+        invalidateCapabilities(face);
+    }
+
+    /**
+     * Drop the capabilities cached for a face but keep the neighbor tile.
+     */
+    public void invalidateCapabilities(EnumFacing face) {
+        int index = face.getIndex();
+        changeCounts[index]++;
+        long faceBits = FACE_BITS << (index * SIDES);
+        for (Entry entry : capabilities.values()) {
+            if ((entry.resolved & faceBits) != 0) {
+                entry.resolved &= ~faceBits;
+                for (int i = index * SIDES; i < (index + 1) * SIDES; i++) {
+                    entry.handlers[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * Counter bumped whenever the neighbor on a face changes or reports a tile
+     * change (markDirty of a horizontal neighbor), so callers can tell if
+     * something they learned about the neighbor may be out of date.
+     */
+    public int getChangeCount(EnumFacing face) {
+        return changeCounts[face.getIndex()];
+    }
+
+    public void invalidateAll() {
+        for (EnumFacing face : EnumFacing.VALUES) {
+            invalidate(face);
+        }
+    }
+
+    private int getCrossChunkMask() {
+        if (crossChunkMask < 0) {
+            BlockPos pos = owner.getPos();
+            int mask = 0;
+            for (EnumFacing face : EnumFacing.HORIZONTALS) {
+                BlockPos neighbor = pos.offset(face);
+                if ((neighbor.getX() >> 4) != (pos.getX() >> 4) || (neighbor.getZ() >> 4) != (pos.getZ() >> 4)) {
+                    mask |= 1 << face.getIndex();
+                }
+            }
+            crossChunkMask = mask;
+        }
+        return crossChunkMask;
+    }
+
+    /**
+     * Call from Block#neighborChanged. Invalidates the cache entries of the
+     * face pointing at the changed neighbor.
+     */
+    public static void onNeighborChanged(IBlockAccess world, BlockPos pos, BlockPos neighborPos) {
+        NeighborCapabilityCache cache = getCache(world, pos);
+        if (cache == null) {
+            return;
+        }
+        EnumFacing face = getFace(pos, neighborPos);
+        if (face != null) {
+            cache.invalidate(face);
+        } else {
+            cache.invalidateAll();
+        }
+    }
+
+    /**
+     * Call from Block#onNeighborChange. That fires for every markDirty of a
+     * horizontal neighbor (comparator updates), so the neighbor tile is kept
+     * and only its capabilities are looked up again. A replaced tile comes
+     * with a block change, or is caught by the isInvalid check.
+     */
+    public static void onNeighborTileChanged(IBlockAccess world, BlockPos pos, BlockPos neighborPos) {
+        NeighborCapabilityCache cache = getCache(world, pos);
+        if (cache == null) {
+            return;
+        }
+        EnumFacing face = getFace(pos, neighborPos);
+        if (face != null) {
+            cache.invalidateCapabilities(face);
+        } else {
+            cache.invalidateAll();
+        }
+    }
+
+    @Nullable
+    private static NeighborCapabilityCache getCache(IBlockAccess world, BlockPos pos) {
+        TileEntity tile = world.getTileEntity(pos);
+        return tile instanceof Provider ? ((Provider) tile).getNeighborCache() : null;
+    }
+
+    @Nullable
+    private static EnumFacing getFace(BlockPos pos, BlockPos neighborPos) {
+        BlockPos delta = neighborPos.subtract(pos);
+        EnumFacing face = EnumFacing.getFacingFromVector(delta.getX(), delta.getY(), delta.getZ());
+        return pos.offset(face).equals(neighborPos) ? face : null;
+    }
+}
@@ -0,0 +1,36 @@
+package com.antigravity.advancedsorter.util;
+
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Collection;
+
+/**
+ * Block positions packed into int arrays for saved data: each position is
+ * BlockPos#toLong split into a high and a low int (1.12 NBT can't read
+ * long arrays back).
+ */
+public final class PackedPositions {
+
+    private PackedPositions() {
+    }
+
+    public static int[] pack(Collection<BlockPos> positions) {
+        int[] data = new int[positions.size() * 2];
+        int i = 0;
+        for (BlockPos pos : positions) {
+            long packed = pos.toLong();
+            data[i++] = (int) (packed >>> 32);
+            data[i++] = (int) packed;
+        }
+        return data;
+    }
+
+    public static int count(int[] data) {
+        return data.length / 2;
+    }
+
+    public static BlockPos get(int[] data, int index) {
+        long packed = ((long) data[index * 2] << 32) | (data[index * 2 + 1] & 0xFFFFFFFFL);
+        return BlockPos.fromLong(packed);
+    }
+}
@@ -0,0 +1,110 @@
+package com.antigravity.advancedsorter.util;
+
+import com.antigravity.advancedsorter.AdvancedSorterMod;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.EnumFacing;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraftforge.event.world.WorldEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+import net.minecraftforge.fml.relauncher.Side;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Resolves the connections of pipes loaded with their chunk on the first
+ * server tick after the load, one pass per chunk, instead of every pipe
+ * updating itself and its six neighbors from onLoad.
+ *
+ * Each loaded pipe resolves once. Pipes next to it that were already loaded
+ * (other chunks) resolve once too, as they may connect to it now. Pipes
+ * only mark themselves dirty and send a block update if their connections
+ * changed against what they loaded from NBT.
+ */
+@Mod.EventBusSubscriber(modid = AdvancedSorterMod.MODID)
+public class PipeConnectionQueue {
+
+    /**
+     * Implemented by pipes that resolve their connections through the queue.
+     */
+    public interface Pipe extends NeighborCapabilityCache.Provider {
+        /**
+         * Connect to the current neighbors. Syncs only if the connections changed.
+         */
+        void updateConnections();
+
+        /**
+         * Whether a neighbor is a pipe whose connections depend on this one.
+         */
+        boolean isConnectablePipe(TileEntity neighbor);
+    }
+
+    // Pipes waiting for their first connection update, per world and chunk
+    private static final Map<World, Map<Long, List<Pipe>>> pending = new WeakHashMap<>();
+
+    /**
+     * Resolve a pipe's connections on the next server tick (call from onLoad).
+     */
+    public static void schedule(TileEntity pipe) {
+        World world = pipe.getWorld();
+        if (world == null || world.isRemote || !(pipe instanceof Pipe)) {
+            return;
+        }
+        long chunk = ChunkPos.asLong(pipe.getPos().getX() >> 4, pipe.getPos().getZ() >> 4);
+        pending.computeIfAbsent(world, w -> new LinkedHashMap<>())
+                .computeIfAbsent(chunk, c -> new ArrayList<>())
+                .add((Pipe) pipe);
+    }
+
+    @SubscribeEvent
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.START || event.side != Side.SERVER) {
+            return;
+        }
+        Map<Long, List<Pipe>> chunks = pending.get(event.world);
+        if (chunks == null || chunks.isEmpty()) {
+            return;
+        }
+        pending.remove(event.world); // Loads during the pass queue for the next tick
+
+        Set<Pipe> resolved = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (List<Pipe> pipes : chunks.values()) {
+            resolveChunk(pipes, resolved);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        pending.remove(event.getWorld());
+    }
+
+    private static void resolveChunk(List<Pipe> pipes, Set<Pipe> resolved) {
+        for (Pipe pipe : pipes) {
+            if (!((TileEntity) pipe).isInvalid() && resolved.add(pipe)) {
+                pipe.updateConnections();
+            }
+        }
+
+        // Already loaded neighbors may connect to the new pipes now
+        for (Pipe pipe : pipes) {
+            if (((TileEntity) pipe).isInvalid())
+                continue;
+            for (EnumFacing face : EnumFacing.VALUES) {
+                TileEntity neighbor = pipe.getNeighborCache().getTileEntity(face);
+                if (neighbor instanceof Pipe && !neighbor.isInvalid() && pipe.isConnectablePipe(neighbor)
+                        && resolved.add((Pipe) neighbor)) {
+                    ((Pipe) neighbor).updateConnections();
+                }
+            }
+        }
+    }
+}
@@ -9,16 +9,29 @@ import net.minecraft.world.storage.WorldSavedData;
 import net.minecraftforge.common.util.Constants;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Registry for managing extraction pipes and their pump status by frequency.
  * Saved per-dimension in world data.
+ *
+ * Pump controllers push state changes; extraction pipes subscribe to their
+ * frequency and are told when its state changes instead of polling.
  */
 public class PumpRegistry extends WorldSavedData {
 
+    /**
+     * Told when the pumping state of a subscribed frequency changes.
+     */
+    public interface Listener {
+        void onPumpingChanged(int frequency, boolean enabled);
+    }
+
     private static final String DATA_NAME = "advancedsorter_pump_registry";
 
     // Maps frequency -> list of extraction pipe positions
@@ -26,6 +39,13 @@ public class PumpRegistry extends WorldSavedData {
     // Maps frequency -> pumping enabled
     private final Map<Integer, Boolean> pumpingEnabled = new HashMap<>();
 
+    // Maps frequency -> subscribed listeners (not saved)
+    private final Map<Integer, Set<Listener>> listeners = new HashMap<>();
+
+    // Last saved form of each part, null once it changed
+    private NBTTagList pipesSaved = null;
+    private int[] pumpingSaved = null;
+
     public PumpRegistry() {
         super(DATA_NAME);
     }
@@ -51,7 +71,7 @@ public class PumpRegistry extends WorldSavedData {
         List<BlockPos> pipes = extractionPipes.computeIfAbsent(frequency, k -> new ArrayList<>());
         if (!pipes.contains(pos)) {
             pipes.add(pos);
-            markDirty();
+            pipesChanged();
         }
     }
 
@@ -60,12 +80,11 @@ public class PumpRegistry extends WorldSavedData {
      */
     public void unregisterExtractionPipe(int frequency, BlockPos pos) {
         List<BlockPos> pipes = extractionPipes.get(frequency);
-        if (pipes != null) {
-            pipes.remove(pos);
+        if (pipes != null && pipes.remove(pos)) {
             if (pipes.isEmpty()) {
                 extractionPipes.remove(frequency);
             }
-            markDirty();
+            pipesChanged();
         }
     }
 
@@ -88,7 +107,41 @@ public class PumpRegistry extends WorldSavedData {
      * Set pumping state for a frequency.
      */
     public void setPumpingEnabled(int frequency, boolean enabled) {
+        if (isPumpingEnabled(frequency) == enabled) {
+            return;
+        }
         pumpingEnabled.put(frequency, enabled);
+        pumpingSaved = null;
+        markDirty();
+
+        Set<Listener> subscribed = listeners.get(frequency);
+        if (subscribed != null) {
+            for (Listener listener : new ArrayList<>(subscribed)) {
+                listener.onPumpingChanged(frequency, enabled);
+            }
+        }
+    }
+
+    /**
+     * Subscribe to the pumping state of a frequency.
+     *
+     * @return the current state
+     */
+    public boolean subscribe(int frequency, Listener listener) {
+        listeners.computeIfAbsent(frequency, k -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                .add(listener);
+        return isPumpingEnabled(frequency);
+    }
+
+    public void unsubscribe(int frequency, Listener listener) {
+        Set<Listener> subscribed = listeners.get(frequency);
+        if (subscribed != null && subscribed.remove(listener) && subscribed.isEmpty()) {
+            listeners.remove(frequency);
+        }
+    }
+
+    private void pipesChanged() {
+        pipesSaved = null;
         markDirty();
     }
 
@@ -111,61 +164,69 @@ public class PumpRegistry extends WorldSavedData {
     public void readFromNBT(NBTTagCompound nbt) {
         extractionPipes.clear();
         pumpingEnabled.clear();
+        pipesSaved = null;
+        pumpingSaved = null;
 
-        // Read extraction pipes
+        // Read extraction pipes (packed positions; older saves used x/y/z tags)
         NBTTagList pipesList = nbt.getTagList("extractionPipes", Constants.NBT.TAG_COMPOUND);
         for (int i = 0; i < pipesList.tagCount(); i++) {
             NBTTagCompound entry = pipesList.getCompoundTagAt(i);
             int freq = entry.getInteger("freq");
-            NBTTagList posList = entry.getTagList("positions", Constants.NBT.TAG_COMPOUND);
             List<BlockPos> positions = new ArrayList<>();
-            for (int j = 0; j < posList.tagCount(); j++) {
-                NBTTagCompound posTag = posList.getCompoundTagAt(j);
-                positions.add(new BlockPos(
-                        posTag.getInteger("x"),
-                        posTag.getInteger("y"),
-                        posTag.getInteger("z")));
+            if (entry.hasKey("packed", Constants.NBT.TAG_INT_ARRAY)) {
+                int[] packed = entry.getIntArray("packed");
+                for (int j = 0; j < PackedPositions.count(packed); j++) {
+                    positions.add(PackedPositions.get(packed, j));
+                }
+            } else {
+                NBTTagList posList = entry.getTagList("positions", Constants.NBT.TAG_COMPOUND);
+                for (int j = 0; j < posList.tagCount(); j++) {
+                    NBTTagCompound posTag = posList.getCompoundTagAt(j);
+                    positions.add(new BlockPos(
+                            posTag.getInteger("x"),
+                            posTag.getInteger("y"),
+                            posTag.getInteger("z")));
+                }
             }
             extractionPipes.put(freq, positions);
         }
 
-        // Read pumping states
-        NBTTagList pumpingList = nbt.getTagList("pumpingStates", Constants.NBT.TAG_COMPOUND);
-        for (int i = 0; i < pumpingList.tagCount(); i++) {
-            NBTTagCompound entry = pumpingList.getCompoundTagAt(i);
-            pumpingEnabled.put(entry.getInteger("freq"), entry.getBoolean("enabled"));
+        // Read pumping states (frequencies that pump; older saves listed each state)
+        if (nbt.hasKey("pumping", Constants.NBT.TAG_INT_ARRAY)) {
+            for (int freq : nbt.getIntArray("pumping")) {
+                pumpingEnabled.put(freq, true);
+            }
+        } else {
+            NBTTagList pumpingList = nbt.getTagList("pumpingStates", Constants.NBT.TAG_COMPOUND);
+            for (int i = 0; i < pumpingList.tagCount(); i++) {
+                NBTTagCompound entry = pumpingList.getCompoundTagAt(i);
+                pumpingEnabled.put(entry.getInteger("freq"), entry.getBoolean("enabled"));
+            }
         }
     }
 
     @Override
     public NBTTagCompound writeToNBT(NBTTagCompound nbt) {
         // Write extraction pipes
-        NBTTagList pipesList = new NBTTagList();
-        for (Map.Entry<Integer, List<BlockPos>> entry : extractionPipes.entrySet()) {
-            NBTTagCompound freqEntry = new NBTTagCompound();
-            freqEntry.setInteger("freq", entry.getKey());
-            NBTTagList posList = new NBTTagList();
-            for (BlockPos pos : entry.getValue()) {
-                NBTTagCompound posTag = new NBTTagCompound();
-                posTag.setInteger("x", pos.getX());
-                posTag.setInteger("y", pos.getY());
-                posTag.setInteger("z", pos.getZ());
-                posList.appendTag(posTag);
+        if (pipesSaved == null) {
+            pipesSaved = new NBTTagList();
+            for (Map.Entry<Integer, List<BlockPos>> entry : extractionPipes.entrySet()) {
+                NBTTagCompound freqEntry = new NBTTagCompound();
+                freqEntry.setInteger("freq", entry.getKey());
+                freqEntry.setIntArray("packed", PackedPositions.pack(entry.getValue()));
+                pipesSaved.appendTag(freqEntry);
             }
-            freqEntry.setTag("positions", posList);
-            pipesList.appendTag(freqEntry);
         }
-        nbt.setTag("extractionPipes", pipesList);
+        nbt.setTag("extractionPipes", pipesSaved);
 
         // Write pumping states
-        NBTTagList pumpingList = new NBTTagList();
-        for (Map.Entry<Integer, Boolean> entry : pumpingEnabled.entrySet()) {
-            NBTTagCompound stateEntry = new NBTTagCompound();
-            stateEntry.setInteger("freq", entry.getKey());
-            stateEntry.setBoolean("enabled", entry.getValue());
-            pumpingList.appendTag(stateEntry);
+        if (pumpingSaved == null) {
+            pumpingSaved = pumpingEnabled.entrySet().stream()
+                    .filter(Map.Entry::getValue)
+                    .mapToInt(Map.Entry::getKey)
+                    .toArray();
         }
-        nbt.setTag("pumpingStates", pumpingList);
+        nbt.setIntArray("pumping", pumpingSaved);
 
         return nbt;
     }
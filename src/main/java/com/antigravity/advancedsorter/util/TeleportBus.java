@@ -0,0 +1,353 @@
+package com.antigravity.advancedsorter.util;
+
+import com.antigravity.advancedsorter.AdvancedSorterMod;
+import com.antigravity.advancedsorter.pipes.fluid.teleport.TileTeleportFluidPipe;
+import com.antigravity.advancedsorter.pipes.gas.teleport.TileTeleportGasPipe;
+import com.antigravity.advancedsorter.pipes.teleport.TileTeleportPipe;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldServer;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+import javax.annotation.Nullable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collects the teleport transfers of all sending pipes during a server tick
+ * and delivers them at the end of the tick, grouped by channel and
+ * frequency.
+ *
+ * The receivers of a frequency are resolved once per tick (target world,
+ * chunk and tile entity, each looked up once, stale registry entries
+ * dropped) and handed to every sender on that frequency, sorted by
+ * dimension and chunk. Senders register once per tick and push whatever
+ * they have queued.
+ *
+ * Resolved receivers are cached per channel and frequency as weak handles
+ * to the tiles, so a steady frequency costs nothing more than checking its
+ * own receivers. The registry drops a frequency's handles when its entries
+ * change, receivers drop them when they unload.
+ *
+ * Nothing is loaded to deliver: receivers whose dimension or chunk isn't
+ * loaded are only counted, and senders put what no loaded receiver takes
+ * into the frequency's buffer in TeleportRegistry. Receivers take buffered
+ * transfers when they load and whenever their frequency is active.
+ */
+@Mod.EventBusSubscriber(modid = AdvancedSorterMod.MODID)
+public class TeleportBus {
+
+    /**
+     * Implemented by teleport pipes that send.
+     */
+    public interface Sender {
+        Channel getTeleportChannel();
+
+        int getFrequency();
+
+        /**
+         * Push this tick's transfers. The loaded receivers are valid receiving
+         * pipes of the sender's channel and frequency, possibly including the
+         * sender.
+         */
+        void deliverTeleports(Receivers receivers);
+
+        /**
+         * Take what the frequency's buffer holds, as far as there is room
+         * (only if this pipe receives).
+         */
+        void receiveBuffered(TeleportRegistry registry);
+    }
+
+    /**
+     * Receivers of a frequency at the time of delivery.
+     */
+    public static class Receivers {
+        public final List<TileEntity> loaded = new ArrayList<>();
+        public int unloaded = 0; // Registered receivers that aren't loaded
+
+        public boolean isEmpty() {
+            return loaded.isEmpty() && unloaded == 0;
+        }
+    }
+
+    public enum Channel {
+        ITEM, FLUID, GAS;
+
+        List<TeleportRegistry.TeleportLocation> getReceivers(TeleportRegistry registry, int frequency) {
+            switch (this) {
+                case ITEM:
+                    return registry.getReceivers(frequency);
+                case FLUID:
+                    return registry.getFluidReceivers(frequency);
+                default:
+                    return registry.getGasReceivers(frequency);
+            }
+        }
+
+        boolean hasBuffered(TeleportRegistry registry, int frequency) {
+            switch (this) {
+                case ITEM:
+                    return registry.hasBufferedItems(frequency);
+                case FLUID:
+                    return registry.peekFluid(frequency) != null;
+                default:
+                    return registry.peekGas(frequency) != null;
+            }
+        }
+
+        /**
+         * @return 1 if the tile receives on the frequency, 0 if it is a pipe of
+         *         this channel that doesn't receive right now, -1 if the
+         *         registry entry is stale
+         */
+        int checkReceiver(TileEntity te, int frequency) {
+            switch (this) {
+                case ITEM:
+                    if (!(te instanceof TileTeleportPipe) || ((TileTeleportPipe) te).getFrequency() != frequency)
+                        return -1;
+                    return ((TileTeleportPipe) te).getMode().canReceive() ? 1 : 0;
+                case FLUID:
+                    if (!(te instanceof TileTeleportFluidPipe)
+                            || ((TileTeleportFluidPipe) te).getFrequency() != frequency)
+                        return -1;
+                    return ((TileTeleportFluidPipe) te).getMode().canReceive() ? 1 : 0;
+                default:
+                    if (!(te instanceof TileTeleportGasPipe) || ((TileTeleportGasPipe) te).getFrequency() != frequency)
+                        return -1;
+                    return ((TileTeleportGasPipe) te).getMode().canReceive() ? 1 : 0;
+            }
+        }
+    }
+
+    private static final Comparator<TeleportRegistry.TeleportLocation> BY_CHUNK = Comparator
+            .<TeleportRegistry.TeleportLocation>comparingInt(loc -> loc.dimension)
+            .thenComparingInt(loc -> loc.pos.getX() >> 4)
+            .thenComparingInt(loc -> loc.pos.getZ() >> 4);
+
+    // Senders of this tick, per channel and frequency
+    private static final Map<Long, List<Sender>> senders = new LinkedHashMap<>();
+    private static final Set<Sender> queued = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // Receivers that loaded this tick and may have buffered transfers waiting
+    private static final List<Sender> arrivals = new ArrayList<>();
+
+    // Tiles looked up in the current delivery pass (null = not loaded)
+    private static final Map<Integer, Map<BlockPos, TileEntity>> tiles = new HashMap<>();
+
+    // Resolved receivers per channel and frequency
+    private static final Map<Long, Handles> handles = new HashMap<>();
+
+    /**
+     * Weak handles to the resolved receivers of a frequency.
+     */
+    private static class Handles {
+        final List<WeakReference<TileEntity>> loaded;
+        final int unloaded;
+
+        Handles(Receivers receivers) {
+            loaded = new ArrayList<>(receivers.loaded.size());
+            for (TileEntity te : receivers.loaded) {
+                loaded.add(new WeakReference<>(te));
+            }
+            unloaded = receivers.unloaded;
+        }
+
+        /**
+         * @return the receivers, or null if one of them has gone away
+         */
+        @Nullable
+        Receivers get() {
+            Receivers receivers = new Receivers();
+            for (WeakReference<TileEntity> handle : loaded) {
+                TileEntity te = handle.get();
+                if (te == null || te.isInvalid()) {
+                    return null;
+                }
+                receivers.loaded.add(te);
+            }
+            receivers.unloaded = unloaded;
+            return receivers;
+        }
+    }
+
+    /**
+     * Deliver the sender's queued transfers at the end of this tick. Calling
+     * this more than once per tick is harmless.
+     */
+    public static void queue(Sender sender) {
+        TileEntity tile = (TileEntity) sender;
+        if (tile.getWorld() == null || tile.getWorld().isRemote) {
+            return;
+        }
+        if (queued.add(sender)) {
+            senders.computeIfAbsent(key(sender.getTeleportChannel(), sender.getFrequency()), k -> new ArrayList<>())
+                    .add(sender);
+        }
+    }
+
+    /**
+     * Let a receiver that just loaded take its frequency's buffered transfers
+     * at the end of this tick (call from onLoad).
+     */
+    public static void queueArrival(Sender receiver) {
+        TileEntity tile = (TileEntity) receiver;
+        if (tile.getWorld() != null && !tile.getWorld().isRemote) {
+            arrivals.add(receiver);
+        }
+    }
+
+    /**
+     * Receivers of a frequency right away (outside the tick's delivery pass),
+     * e.g. for one-off transfers.
+     */
+    public static Receivers resolveReceivers(World world, Channel channel, int frequency) {
+        try {
+            return getReceivers(TeleportRegistry.get(world), channel, frequency);
+        } finally {
+            tiles.clear();
+        }
+    }
+
+    /**
+     * Drop the resolved receivers of a frequency; they are resolved again on
+     * the next transfer. Called when the registry entries of the frequency
+     * change or one of its receivers unloads.
+     */
+    public static void invalidateReceivers(Channel channel, int frequency) {
+        handles.remove(key(channel, frequency));
+    }
+
+    /**
+     * Drop all resolved receivers (registry loaded or server starting).
+     */
+    public static void invalidateAllReceivers() {
+        handles.clear();
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || (senders.isEmpty() && arrivals.isEmpty())) {
+            return;
+        }
+
+        World overworld = DimensionManager.getWorld(0);
+        if (overworld == null) {
+            return;
+        }
+        TeleportRegistry registry = TeleportRegistry.get(overworld);
+
+        List<Sender> loaded = new ArrayList<>(arrivals);
+        arrivals.clear();
+        for (Sender receiver : loaded) {
+            if (!((TileEntity) receiver).isInvalid()) {
+                receiver.receiveBuffered(registry);
+            }
+        }
+
+        List<List<Sender>> groups = new ArrayList<>(senders.values());
+        senders.clear(); // Transfers queued during delivery go out next tick
+        queued.clear();
+
+        try {
+            for (List<Sender> group : groups) {
+                Sender first = group.get(0);
+                Channel channel = first.getTeleportChannel();
+                Receivers receivers = getReceivers(registry, channel, first.getFrequency());
+
+                // Older buffered transfers go first; senders don't take back
+                // what they buffered themselves
+                if (!receivers.loaded.isEmpty() && channel.hasBuffered(registry, first.getFrequency())) {
+                    for (TileEntity receiver : receivers.loaded) {
+                        if (!group.contains(receiver)) {
+                            ((Sender) receiver).receiveBuffered(registry);
+                        }
+                    }
+                }
+                for (Sender sender : group) {
+                    sender.deliverTeleports(receivers);
+                }
+            }
+        } finally {
+            tiles.clear();
+        }
+    }
+
+    private static Receivers getReceivers(TeleportRegistry registry, Channel channel, int frequency) {
+        long key = key(channel, frequency);
+        Handles cached = handles.get(key);
+        if (cached != null) {
+            Receivers receivers = cached.get();
+            if (receivers != null) {
+                return receivers;
+            }
+        }
+
+        // Stale entries found while resolving invalidate nothing yet, the
+        // handles are stored afterwards
+        Receivers receivers = resolve(registry, channel, frequency);
+        handles.put(key, new Handles(receivers));
+        return receivers;
+    }
+
+    private static Receivers resolve(TeleportRegistry registry, Channel channel, int frequency) {
+        Receivers receivers = new Receivers();
+        List<TeleportRegistry.TeleportLocation> registered = channel.getReceivers(registry, frequency);
+        if (registered.isEmpty()) {
+            return receivers;
+        }
+        List<TeleportRegistry.TeleportLocation> locations = new ArrayList<>(registered); // Shared snapshot
+        locations.sort(BY_CHUNK);
+
+        for (TeleportRegistry.TeleportLocation loc : locations) {
+            TileEntity te = getLoadedTile(loc);
+            if (te == null) {
+                receivers.unloaded++;
+                continue;
+            }
+            int check = channel.checkReceiver(te, frequency);
+            if (check > 0) {
+                receivers.loaded.add(te);
+            } else if (check < 0) {
+                registry.removeStale(channel, loc); // Registry has stale data
+            }
+        }
+        return receivers;
+    }
+
+    /**
+     * Tile at a location if its dimension and chunk are loaded. Never loads
+     * anything.
+     */
+    @Nullable
+    private static TileEntity getLoadedTile(TeleportRegistry.TeleportLocation loc) {
+        Map<BlockPos, TileEntity> dimTiles = tiles.computeIfAbsent(loc.dimension, d -> new HashMap<>());
+        if (dimTiles.containsKey(loc.pos)) {
+            return dimTiles.get(loc.pos);
+        }
+
+        TileEntity te = null;
+        WorldServer world = DimensionManager.getWorld(loc.dimension);
+        if (world != null && world.isBlockLoaded(loc.pos)) {
+            te = world.getTileEntity(loc.pos);
+        }
+        dimTiles.put(loc.pos, te);
+        return te;
+    }
+
+    private static long key(Channel channel, int frequency) {
+        return ((long) channel.ordinal() << 32) | (frequency & 0xFFFFFFFFL);
+    }
+}
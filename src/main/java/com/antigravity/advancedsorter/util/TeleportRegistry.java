@@ -1,5 +1,7 @@
 package com.antigravity.advancedsorter.util;
 
+import com.antigravity.advancedsorter.ModConfig;
+import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.math.BlockPos;
@@ -7,7 +9,10 @@ import net.minecraft.world.World;
 import net.minecraft.world.storage.MapStorage;
 import net.minecraft.world.storage.WorldSavedData;
 import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.fluids.FluidStack;
+import net.minecraftforge.items.ItemHandlerHelper;
 
+import javax.annotation.Nullable;
 import java.util.*;
 
 /**
@@ -17,10 +22,26 @@ import java.util.*;
 public class TeleportRegistry extends WorldSavedData {
     private static final String DATA_NAME = "AdvancedSorter_TeleportRegistry";
 
-    // Frequency -> List of pipe locations
-    private final Map<Integer, List<TeleportLocation>> pipesByFrequency = new HashMap<>();
-    private final Map<Integer, List<TeleportLocation>> fluidPipesByFrequency = new HashMap<>();
-    private final Map<Integer, List<TeleportLocation>> gasPipesByFrequency = new HashMap<>();
+    // Registered pipes per kind, by location and by frequency
+    private final PipeIndex itemPipes = new PipeIndex(TeleportBus.Channel.ITEM);
+    private final PipeIndex fluidPipes = new PipeIndex(TeleportBus.Channel.FLUID);
+    private final PipeIndex gasPipes = new PipeIndex(TeleportBus.Channel.GAS);
+    private final PipeIndex[] indexes = { itemPipes, fluidPipes, gasPipes }; // By channel ordinal
+
+    // Index the background sweep is working through
+    private int sweepIndex = 0;
+
+    // Transfers to receivers whose chunk isn't loaded, per frequency, handed
+    // over when a receiver loads (gas by name so this class needs no Mekanism)
+    private final Map<Integer, List<ItemStack>> itemBuffers = new HashMap<>();
+    private final Map<Integer, List<FluidStack>> fluidBuffers = new HashMap<>();
+    private final Map<Integer, Map<String, Integer>> gasBuffers = new HashMap<>();
+
+    // Last saved form of each buffer kind, null once it changed (the pipe
+    // indexes keep theirs)
+    private NBTTagList itemBuffersSaved = null;
+    private NBTTagList fluidBuffersSaved = null;
+    private NBTTagList gasBuffersSaved = null;
 
     public TeleportRegistry() {
         super(DATA_NAME);
@@ -43,54 +64,70 @@ public class TeleportRegistry extends WorldSavedData {
     }
 
     /**
-     * Validates all registered pipes and removes entries for pipes that no longer exist.
-     * Should be called periodically or when issues are detected.
+     * Check up to budget registered pipes, continuing where the last call
+     * stopped (item, fluid, then gas pipes, round-robin), and drop the
+     * entries whose pipe is gone. Pipes in unloaded chunks are skipped.
+     *
+     * @return number of stale entries removed
      */
-    public void validateAndCleanup(World world) {
-        boolean changed = false;
-
-        // Clean fluid pipes
-        for (Map.Entry<Integer, List<TeleportLocation>> entry : fluidPipesByFrequency.entrySet()) {
-            Iterator<TeleportLocation> iter = entry.getValue().iterator();
-            while (iter.hasNext()) {
-                TeleportLocation loc = iter.next();
-                if (!isValidFluidPipe(world, loc)) {
-                    iter.remove();
-                    changed = true;
-                }
+    public int sweep(int budget) {
+        int removed = 0;
+        int finished = 0; // Indexes in a row with nothing left this round
+        while (budget > 0 && finished < indexes.length) {
+            PipeIndex index = indexes[sweepIndex];
+            TeleportLocation loc = index.nextToSweep();
+            if (loc == null) {
+                sweepIndex = (sweepIndex + 1) % indexes.length;
+                finished++;
+                continue;
             }
-        }
-
-        // Clean gas pipes
-        for (Map.Entry<Integer, List<TeleportLocation>> entry : gasPipesByFrequency.entrySet()) {
-            Iterator<TeleportLocation> iter = entry.getValue().iterator();
-            while (iter.hasNext()) {
-                TeleportLocation loc = iter.next();
-                if (!isValidGasPipe(world, loc)) {
-                    iter.remove();
-                    changed = true;
-                }
+            finished = 0;
+            budget--;
+            if (!isValidPipe(index.channel, loc) && index.removeEntry(loc)) {
+                index.staleRemoved++;
+                removed++;
             }
         }
-
-        // Clean item pipes
-        for (Map.Entry<Integer, List<TeleportLocation>> entry : pipesByFrequency.entrySet()) {
-            Iterator<TeleportLocation> iter = entry.getValue().iterator();
-            while (iter.hasNext()) {
-                TeleportLocation loc = iter.next();
-                if (!isValidItemPipe(world, loc)) {
-                    iter.remove();
-                    changed = true;
-                }
-            }
+        if (removed > 0) {
+            markDirty();
         }
+        return removed;
+    }
 
-        if (changed) {
+    /**
+     * Drop an entry found stale while delivering.
+     */
+    public void removeStale(TeleportBus.Channel channel, TeleportLocation loc) {
+        PipeIndex index = indexes[channel.ordinal()];
+        if (index.removeEntry(loc)) {
+            index.staleRemoved++;
             markDirty();
         }
     }
 
-    private boolean isValidFluidPipe(World world, TeleportLocation loc) {
+    /**
+     * Stale entries removed since the registry was loaded.
+     */
+    public int getStaleRemoved(TeleportBus.Channel channel) {
+        return indexes[channel.ordinal()].staleRemoved;
+    }
+
+    public int getPipeCount(TeleportBus.Channel channel) {
+        return indexes[channel.ordinal()].size;
+    }
+
+    private boolean isValidPipe(TeleportBus.Channel channel, TeleportLocation loc) {
+        switch (channel) {
+            case ITEM:
+                return isValidItemPipe(loc);
+            case FLUID:
+                return isValidFluidPipe(loc);
+            default:
+                return isValidGasPipe(loc);
+        }
+    }
+
+    private boolean isValidFluidPipe(TeleportLocation loc) {
         try {
             net.minecraft.world.WorldServer targetWorld = net.minecraftforge.common.DimensionManager.getWorld(loc.dimension);
             if (targetWorld == null) return true; // Can't validate, keep it
@@ -103,7 +140,7 @@ public class TeleportRegistry extends WorldSavedData {
         }
     }
 
-    private boolean isValidGasPipe(World world, TeleportLocation loc) {
+    private boolean isValidGasPipe(TeleportLocation loc) {
         try {
             net.minecraft.world.WorldServer targetWorld = net.minecraftforge.common.DimensionManager.getWorld(loc.dimension);
             if (targetWorld == null) return true;
@@ -116,7 +153,7 @@ public class TeleportRegistry extends WorldSavedData {
         }
     }
 
-    private boolean isValidItemPipe(World world, TeleportLocation loc) {
+    private boolean isValidItemPipe(TeleportLocation loc) {
         try {
             net.minecraft.world.WorldServer targetWorld = net.minecraftforge.common.DimensionManager.getWorld(loc.dimension);
             if (targetWorld == null) return true;
@@ -132,238 +169,646 @@ public class TeleportRegistry extends WorldSavedData {
     // ========== Item Pipe Methods ==========
 
     public void registerPipe(int frequency, int dimension, BlockPos pos, boolean canSend, boolean canReceive) {
-        removePipe(pos, dimension); // Remove old entry if exists
-
-        pipesByFrequency.computeIfAbsent(frequency, k -> new ArrayList<>())
-                .add(new TeleportLocation(dimension, pos, canSend, canReceive));
-        markDirty();
+        if (itemPipes.register(frequency, dimension, pos, canSend, canReceive)) {
+            markDirty();
+        }
     }
 
     public void removePipe(BlockPos pos, int dimension) {
-        for (List<TeleportLocation> locations : pipesByFrequency.values()) {
-            locations.removeIf(loc -> loc.pos.equals(pos) && loc.dimension == dimension);
+        if (itemPipes.remove(dimension, pos)) {
+            markDirty();
         }
-        markDirty();
     }
 
+    /**
+     * Receivers of a frequency. The list is a shared snapshot: don't modify it.
+     */
     public List<TeleportLocation> getReceivers(int frequency) {
-        List<TeleportLocation> all = pipesByFrequency.get(frequency);
-        if (all == null)
-            return Collections.emptyList();
-
-        List<TeleportLocation> receivers = new ArrayList<>();
-        for (TeleportLocation loc : all) {
-            if (loc.canReceive) {
-                receivers.add(loc);
-            }
-        }
-        return receivers;
+        return itemPipes.getReceivers(frequency);
     }
 
+    /**
+     * Senders of a frequency. The list is a shared snapshot: don't modify it.
+     */
     public List<TeleportLocation> getSenders(int frequency) {
-        List<TeleportLocation> all = pipesByFrequency.get(frequency);
-        if (all == null)
-            return Collections.emptyList();
-
-        List<TeleportLocation> senders = new ArrayList<>();
-        for (TeleportLocation loc : all) {
-            if (loc.canSend) {
-                senders.add(loc);
-            }
-        }
-        return senders;
+        return itemPipes.getSenders(frequency);
     }
 
     // ========== Fluid Pipe Methods ==========
 
     public void registerFluidPipe(int frequency, int dimension, BlockPos pos, boolean canSend, boolean canReceive) {
-        removeFluidPipe(pos, dimension);
-
-        fluidPipesByFrequency.computeIfAbsent(frequency, k -> new ArrayList<>())
-                .add(new TeleportLocation(dimension, pos, canSend, canReceive));
-        markDirty();
+        if (fluidPipes.register(frequency, dimension, pos, canSend, canReceive)) {
+            markDirty();
+        }
     }
 
     public void removeFluidPipe(BlockPos pos, int dimension) {
-        for (List<TeleportLocation> locations : fluidPipesByFrequency.values()) {
-            locations.removeIf(loc -> loc.pos.equals(pos) && loc.dimension == dimension);
+        if (fluidPipes.remove(dimension, pos)) {
+            markDirty();
         }
-        markDirty();
     }
 
     public List<TeleportLocation> getFluidReceivers(int frequency) {
-        List<TeleportLocation> all = fluidPipesByFrequency.get(frequency);
-        if (all == null)
-            return Collections.emptyList();
-
-        List<TeleportLocation> receivers = new ArrayList<>();
-        for (TeleportLocation loc : all) {
-            if (loc.canReceive) {
-                receivers.add(loc);
-            }
-        }
-        return receivers;
+        return fluidPipes.getReceivers(frequency);
     }
 
     public List<TeleportLocation> getFluidSenders(int frequency) {
-        List<TeleportLocation> all = fluidPipesByFrequency.get(frequency);
-        if (all == null)
-            return Collections.emptyList();
-
-        List<TeleportLocation> senders = new ArrayList<>();
-        for (TeleportLocation loc : all) {
-            if (loc.canSend) {
-                senders.add(loc);
-            }
-        }
-        return senders;
+        return fluidPipes.getSenders(frequency);
     }
 
     public Set<Integer> getFluidFrequencies() {
-        return fluidPipesByFrequency.keySet();
+        return fluidPipes.getFrequencies();
     }
 
     public List<TeleportLocation> getFluidPipesByFrequency(int frequency) {
-        return fluidPipesByFrequency.getOrDefault(frequency, Collections.emptyList());
+        return fluidPipes.getPipes(frequency);
     }
 
     // ========== Gas Pipe Methods ==========
 
     public void registerGasPipe(int frequency, int dimension, BlockPos pos, boolean canSend, boolean canReceive) {
-        removeGasPipe(pos, dimension);
-
-        gasPipesByFrequency.computeIfAbsent(frequency, k -> new ArrayList<>())
-                .add(new TeleportLocation(dimension, pos, canSend, canReceive));
-        markDirty();
+        if (gasPipes.register(frequency, dimension, pos, canSend, canReceive)) {
+            markDirty();
+        }
     }
 
     public void removeGasPipe(BlockPos pos, int dimension) {
-        for (List<TeleportLocation> locations : gasPipesByFrequency.values()) {
-            locations.removeIf(loc -> loc.pos.equals(pos) && loc.dimension == dimension);
+        if (gasPipes.remove(dimension, pos)) {
+            markDirty();
         }
-        markDirty();
     }
 
     public List<TeleportLocation> getGasReceivers(int frequency) {
-        List<TeleportLocation> all = gasPipesByFrequency.get(frequency);
-        if (all == null)
-            return Collections.emptyList();
-
-        List<TeleportLocation> receivers = new ArrayList<>();
-        for (TeleportLocation loc : all) {
-            if (loc.canReceive) {
-                receivers.add(loc);
+        return gasPipes.getReceivers(frequency);
+    }
+
+    public List<TeleportLocation> getGasSenders(int frequency) {
+        return gasPipes.getSenders(frequency);
+    }
+
+    public Set<Integer> getGasFrequencies() {
+        return gasPipes.getFrequencies();
+    }
+
+    public List<TeleportLocation> getGasPipesByFrequency(int frequency) {
+        return gasPipes.getPipes(frequency);
+    }
+
+    /**
+     * Teleport pipes of one kind. Pipes are indexed by dimension and packed
+     * position, so registering and removing one is a lookup. Each frequency
+     * keeps immutable snapshots of its pipes, receivers and senders, rebuilt
+     * when one of its pipes changes, so reads share them.
+     */
+    private static class PipeIndex {
+        private static final byte FLAG_SEND = 1;
+        private static final byte FLAG_RECEIVE = 2;
+
+        private final TeleportBus.Channel channel;
+
+        // Dimension -> packed position -> pipe there
+        private final Map<Integer, Map<Long, Indexed>> byLocation = new HashMap<>();
+        private final Map<Integer, Frequency> frequencies = new HashMap<>();
+        private int size = 0;
+
+        // Pipes left to check in the current background sweep
+        private final ArrayDeque<TeleportLocation> sweepQueue = new ArrayDeque<>();
+        private int staleRemoved = 0;
+
+        // Last saved form, null once something changed
+        private NBTTagList saved = null;
+
+        PipeIndex(TeleportBus.Channel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * @return true if the registry changed
+         */
+        boolean register(int frequency, int dimension, BlockPos pos, boolean canSend, boolean canReceive) {
+            Indexed current = byLocation.computeIfAbsent(dimension, d -> new HashMap<>()).get(pos.toLong());
+            if (current != null && current.frequency == frequency) {
+                TeleportLocation loc = current.location;
+                if (loc.canSend == canSend && loc.canReceive == canReceive) {
+                    // Same entry - a reloaded receiver still changes who is loaded
+                    TeleportBus.invalidateReceivers(channel, frequency);
+                    return false;
+                }
+            }
+            if (current != null) {
+                remove(dimension, pos);
+            }
+            add(frequency, new TeleportLocation(dimension, pos, canSend, canReceive));
+            return true;
+        }
+
+        /**
+         * @return true if a pipe was registered at the location
+         */
+        boolean remove(int dimension, BlockPos pos) {
+            Map<Long, Indexed> dimPipes = byLocation.get(dimension);
+            Indexed indexed = dimPipes == null ? null : dimPipes.remove(pos.toLong());
+            if (indexed == null) {
+                return false;
+            }
+            size--;
+            saved = null;
+            Frequency freq = frequencies.get(indexed.frequency);
+            freq.pipes.remove(indexed.location);
+            if (freq.pipes.isEmpty()) {
+                frequencies.remove(indexed.frequency);
+            } else {
+                freq.rebuild();
+            }
+            TeleportBus.invalidateReceivers(channel, indexed.frequency);
+            return true;
+        }
+
+        private void add(int frequency, TeleportLocation loc) {
+            byLocation.computeIfAbsent(loc.dimension, d -> new HashMap<>())
+                    .put(loc.pos.toLong(), new Indexed(frequency, loc));
+            size++;
+            saved = null;
+            Frequency freq = frequencies.computeIfAbsent(frequency, f -> new Frequency());
+            freq.pipes.add(loc);
+            freq.rebuild();
+            TeleportBus.invalidateReceivers(channel, frequency);
+        }
+
+        /**
+         * Remove a pipe if it is still registered as this very entry.
+         */
+        boolean removeEntry(TeleportLocation loc) {
+            Map<Long, Indexed> dimPipes = byLocation.get(loc.dimension);
+            Indexed indexed = dimPipes == null ? null : dimPipes.get(loc.pos.toLong());
+            return indexed != null && indexed.location == loc && remove(loc.dimension, loc.pos);
+        }
+
+        /**
+         * Next pipe to check in the background sweep, or null once per round
+         * (the next round starts with the pipes registered by then).
+         */
+        @Nullable
+        TeleportLocation nextToSweep() {
+            if (sweepQueue.isEmpty()) {
+                for (Frequency freq : frequencies.values()) {
+                    sweepQueue.addAll(freq.all);
+                }
+                return null;
+            }
+            return sweepQueue.poll();
+        }
+
+        List<TeleportLocation> getPipes(int frequency) {
+            Frequency freq = frequencies.get(frequency);
+            return freq == null ? Collections.emptyList() : freq.all;
+        }
+
+        List<TeleportLocation> getReceivers(int frequency) {
+            Frequency freq = frequencies.get(frequency);
+            return freq == null ? Collections.emptyList() : freq.receivers;
+        }
+
+        List<TeleportLocation> getSenders(int frequency) {
+            Frequency freq = frequencies.get(frequency);
+            return freq == null ? Collections.emptyList() : freq.senders;
+        }
+
+        Set<Integer> getFrequencies() {
+            return Collections.unmodifiableSet(frequencies.keySet());
+        }
+
+        void clear() {
+            byLocation.clear();
+            frequencies.clear();
+            sweepQueue.clear();
+            size = 0;
+            saved = null;
+        }
+
+        /**
+         * Read the old format: one compound per pipe.
+         */
+        void readLegacyNBT(NBTTagList list) {
+            clear();
+            for (int i = 0; i < list.tagCount(); i++) {
+                NBTTagCompound freqTag = list.getCompoundTagAt(i);
+                int freq = freqTag.getInteger("Freq");
+                NBTTagList locsList = freqTag.getTagList("Locs", Constants.NBT.TAG_COMPOUND);
+                for (int j = 0; j < locsList.tagCount(); j++) {
+                    TeleportLocation loc = TeleportLocation.fromNBT(locsList.getCompoundTagAt(j));
+                    remove(loc.dimension, loc.pos); // Older saves may list a pipe twice
+                    add(freq, loc);
+                }
+            }
+        }
+
+        /**
+         * Read the columnar format: per frequency, packed positions plus
+         * dimension and send/receive flag arrays.
+         */
+        void readFromNBT(NBTTagList list) {
+            clear();
+            for (int i = 0; i < list.tagCount(); i++) {
+                NBTTagCompound freqTag = list.getCompoundTagAt(i);
+                int freq = freqTag.getInteger("Freq");
+                int[] positions = freqTag.getIntArray("Pos");
+                int[] dims = freqTag.getIntArray("Dims");
+                byte[] flags = freqTag.getByteArray("Flags");
+                int count = Math.min(PackedPositions.count(positions), Math.min(dims.length, flags.length));
+                for (int j = 0; j < count; j++) {
+                    TeleportLocation loc = new TeleportLocation(dims[j], PackedPositions.get(positions, j),
+                            (flags[j] & FLAG_SEND) != 0, (flags[j] & FLAG_RECEIVE) != 0);
+                    remove(loc.dimension, loc.pos);
+                    add(freq, loc);
+                }
+            }
+            saved = list;
+        }
+
+        /**
+         * Pipes in the columnar format. Reuses the last result while nothing
+         * changed, so autosaves of an unchanged index cost nothing.
+         */
+        NBTTagList writeToNBT() {
+            if (saved != null) {
+                return saved;
+            }
+            NBTTagList list = new NBTTagList();
+            for (Map.Entry<Integer, Frequency> entry : frequencies.entrySet()) {
+                List<TeleportLocation> pipes = entry.getValue().all;
+                List<BlockPos> positions = new ArrayList<>(pipes.size());
+                int[] dims = new int[pipes.size()];
+                byte[] flags = new byte[pipes.size()];
+                for (int j = 0; j < pipes.size(); j++) {
+                    TeleportLocation loc = pipes.get(j);
+                    positions.add(loc.pos);
+                    dims[j] = loc.dimension;
+                    flags[j] = (byte) ((loc.canSend ? FLAG_SEND : 0) | (loc.canReceive ? FLAG_RECEIVE : 0));
+                }
+                NBTTagCompound freqTag = new NBTTagCompound();
+                freqTag.setInteger("Freq", entry.getKey());
+                freqTag.setIntArray("Pos", PackedPositions.pack(positions));
+                freqTag.setIntArray("Dims", dims);
+                freqTag.setByteArray("Flags", flags);
+                list.appendTag(freqTag);
+            }
+            saved = list;
+            return list;
+        }
+
+        private static class Indexed {
+            final int frequency;
+            final TeleportLocation location;
+
+            Indexed(int frequency, TeleportLocation location) {
+                this.frequency = frequency;
+                this.location = location;
+            }
+        }
+
+        /**
+         * Pipes of one frequency in registration order, with their snapshots.
+         */
+        private static class Frequency {
+            final Set<TeleportLocation> pipes = new LinkedHashSet<>(); // Identity, no equals()
+            List<TeleportLocation> all = Collections.emptyList();
+            List<TeleportLocation> receivers = Collections.emptyList();
+            List<TeleportLocation> senders = Collections.emptyList();
+
+            void rebuild() {
+                List<TeleportLocation> newReceivers = new ArrayList<>();
+                List<TeleportLocation> newSenders = new ArrayList<>();
+                for (TeleportLocation loc : pipes) {
+                    if (loc.canReceive) {
+                        newReceivers.add(loc);
+                    }
+                    if (loc.canSend) {
+                        newSenders.add(loc);
+                    }
+                }
+                all = Collections.unmodifiableList(new ArrayList<>(pipes));
+                receivers = Collections.unmodifiableList(newReceivers);
+                senders = Collections.unmodifiableList(newSenders);
             }
         }
-        return receivers;
     }
 
-    public List<TeleportLocation> getGasSenders(int frequency) {
-        List<TeleportLocation> all = gasPipesByFrequency.get(frequency);
-        if (all == null)
-            return Collections.emptyList();
-
-        List<TeleportLocation> senders = new ArrayList<>();
-        for (TeleportLocation loc : all) {
-            if (loc.canSend) {
-                senders.add(loc);
+    // ========== Virtual Buffers ==========
+
+    private void itemBuffersChanged() {
+        itemBuffersSaved = null;
+        markDirty();
+    }
+
+    private void fluidBuffersChanged() {
+        fluidBuffersSaved = null;
+        markDirty();
+    }
+
+    private void gasBuffersChanged() {
+        gasBuffersSaved = null;
+        markDirty();
+    }
+
+    /**
+     * Buffer items for the receivers of a frequency. Merges into buffered
+     * stacks first, up to the configured number of stacks.
+     *
+     * @return the part of the stack that didn't fit
+     */
+    public ItemStack bufferItem(int frequency, ItemStack stack) {
+        List<ItemStack> buffer = itemBuffers.computeIfAbsent(frequency, k -> new ArrayList<>());
+        int count = stack.getCount();
+        for (ItemStack buffered : buffer) {
+            if (stack.isEmpty())
+                break;
+            int space = buffered.getMaxStackSize() - buffered.getCount();
+            if (space > 0 && ItemHandlerHelper.canItemStacksStack(buffered, stack)) {
+                int moved = Math.min(space, stack.getCount());
+                buffered.grow(moved);
+                stack.shrink(moved);
             }
         }
-        return senders;
+        if (!stack.isEmpty() && buffer.size() < ModConfig.pipes.teleportBufferStacks) {
+            buffer.add(stack);
+            stack = ItemStack.EMPTY;
+        }
+        if (stack.getCount() != count) {
+            itemBuffersChanged();
+        }
+        return stack;
     }
 
-    public Set<Integer> getGasFrequencies() {
-        return gasPipesByFrequency.keySet();
+    /**
+     * Take the oldest buffered stack of a frequency, or EMPTY.
+     */
+    public ItemStack pollItem(int frequency) {
+        List<ItemStack> buffer = itemBuffers.get(frequency);
+        if (buffer == null || buffer.isEmpty()) {
+            return ItemStack.EMPTY;
+        }
+        itemBuffersChanged();
+        return buffer.remove(0);
     }
 
-    public List<TeleportLocation> getGasPipesByFrequency(int frequency) {
-        return gasPipesByFrequency.getOrDefault(frequency, Collections.emptyList());
+    public boolean hasBufferedItems(int frequency) {
+        List<ItemStack> buffer = itemBuffers.get(frequency);
+        return buffer != null && !buffer.isEmpty();
+    }
+
+    /**
+     * Buffer fluid for the receivers of a frequency, up to the configured
+     * total amount.
+     *
+     * @return the amount buffered
+     */
+    public int bufferFluid(int frequency, FluidStack stack) {
+        List<FluidStack> buffer = fluidBuffers.computeIfAbsent(frequency, k -> new ArrayList<>());
+        int stored = 0;
+        for (FluidStack buffered : buffer) {
+            stored += buffered.amount;
+        }
+        int accepted = Math.min(stack.amount, ModConfig.pipes.teleportBufferFluid - stored);
+        if (accepted <= 0) {
+            return 0;
+        }
+
+        FluidStack same = null;
+        for (FluidStack buffered : buffer) {
+            if (buffered.isFluidEqual(stack)) {
+                same = buffered;
+                break;
+            }
+        }
+        if (same != null) {
+            same.amount += accepted;
+        } else {
+            FluidStack copy = stack.copy();
+            copy.amount = accepted;
+            buffer.add(copy);
+        }
+        fluidBuffersChanged();
+        return accepted;
+    }
+
+    /**
+     * Copy of the oldest buffered fluid of a frequency, or null.
+     */
+    public FluidStack peekFluid(int frequency) {
+        List<FluidStack> buffer = fluidBuffers.get(frequency);
+        return buffer == null || buffer.isEmpty() ? null : buffer.get(0).copy();
+    }
+
+    /**
+     * Remove an amount of the fluid returned by peekFluid.
+     */
+    public void drainFluid(int frequency, int amount) {
+        List<FluidStack> buffer = fluidBuffers.get(frequency);
+        if (buffer == null || buffer.isEmpty() || amount <= 0) {
+            return;
+        }
+        FluidStack first = buffer.get(0);
+        first.amount -= amount;
+        if (first.amount <= 0) {
+            buffer.remove(0);
+        }
+        fluidBuffersChanged();
+    }
+
+    /**
+     * Buffer gas for the receivers of a frequency, up to the configured total
+     * amount.
+     *
+     * @return the amount buffered
+     */
+    public int bufferGas(int frequency, String gas, int amount) {
+        Map<String, Integer> buffer = gasBuffers.computeIfAbsent(frequency, k -> new LinkedHashMap<>());
+        int stored = 0;
+        for (int buffered : buffer.values()) {
+            stored += buffered;
+        }
+        int accepted = Math.min(amount, ModConfig.pipes.teleportBufferGas - stored);
+        if (accepted <= 0) {
+            return 0;
+        }
+        buffer.merge(gas, accepted, Integer::sum);
+        gasBuffersChanged();
+        return accepted;
+    }
+
+    /**
+     * Oldest buffered gas of a frequency (name and amount), or null.
+     */
+    public Map.Entry<String, Integer> peekGas(int frequency) {
+        Map<String, Integer> buffer = gasBuffers.get(frequency);
+        if (buffer == null || buffer.isEmpty()) {
+            return null;
+        }
+        Map.Entry<String, Integer> first = buffer.entrySet().iterator().next();
+        return new AbstractMap.SimpleImmutableEntry<>(first);
+    }
+
+    /**
+     * Remove an amount of a buffered gas.
+     */
+    public void drainGas(int frequency, String gas, int amount) {
+        Map<String, Integer> buffer = gasBuffers.get(frequency);
+        if (buffer == null || amount <= 0) {
+            return;
+        }
+        Integer stored = buffer.get(gas);
+        if (stored == null) {
+            return;
+        }
+        if (stored <= amount) {
+            buffer.remove(gas);
+        } else {
+            buffer.put(gas, stored - amount);
+        }
+        gasBuffersChanged();
     }
 
     @Override
     public void readFromNBT(NBTTagCompound nbt) {
-        pipesByFrequency.clear();
-        NBTTagList list = nbt.getTagList("Frequencies", Constants.NBT.TAG_COMPOUND);
-        for (int i = 0; i < list.tagCount(); i++) {
-            NBTTagCompound freqTag = list.getCompoundTagAt(i);
-            int freq = freqTag.getInteger("Freq");
-            NBTTagList locsList = freqTag.getTagList("Locs", Constants.NBT.TAG_COMPOUND);
-            List<TeleportLocation> locs = new ArrayList<>();
-            for (int j = 0; j < locsList.tagCount(); j++) {
-                locs.add(TeleportLocation.fromNBT(locsList.getCompoundTagAt(j)));
+        TeleportBus.invalidateAllReceivers();
+        readPipes(nbt, itemPipes, "ItemPipes", "Frequencies");
+        readPipes(nbt, fluidPipes, "FluidPipes", "FluidFrequencies");
+        readPipes(nbt, gasPipes, "GasPipes", "GasFrequencies");
+        itemBuffersSaved = null;
+        fluidBuffersSaved = null;
+        gasBuffersSaved = null;
+
+        itemBuffers.clear();
+        NBTTagList itemBufferList = nbt.getTagList("ItemBuffers", Constants.NBT.TAG_COMPOUND);
+        for (int i = 0; i < itemBufferList.tagCount(); i++) {
+            NBTTagCompound freqTag = itemBufferList.getCompoundTagAt(i);
+            NBTTagList stacks = freqTag.getTagList("Items", Constants.NBT.TAG_COMPOUND);
+            List<ItemStack> buffer = new ArrayList<>();
+            for (int j = 0; j < stacks.tagCount(); j++) {
+                ItemStack stack = new ItemStack(stacks.getCompoundTagAt(j));
+                if (!stack.isEmpty()) {
+                    buffer.add(stack);
+                }
             }
-            pipesByFrequency.put(freq, locs);
-        }
-
-        fluidPipesByFrequency.clear();
-        NBTTagList fluidList = nbt.getTagList("FluidFrequencies", Constants.NBT.TAG_COMPOUND);
-        for (int i = 0; i < fluidList.tagCount(); i++) {
-            NBTTagCompound freqTag = fluidList.getCompoundTagAt(i);
-            int freq = freqTag.getInteger("Freq");
-            NBTTagList locsList = freqTag.getTagList("Locs", Constants.NBT.TAG_COMPOUND);
-            List<TeleportLocation> locs = new ArrayList<>();
-            for (int j = 0; j < locsList.tagCount(); j++) {
-                locs.add(TeleportLocation.fromNBT(locsList.getCompoundTagAt(j)));
+            itemBuffers.put(freqTag.getInteger("Freq"), buffer);
+        }
+
+        fluidBuffers.clear();
+        NBTTagList fluidBufferList = nbt.getTagList("FluidBuffers", Constants.NBT.TAG_COMPOUND);
+        for (int i = 0; i < fluidBufferList.tagCount(); i++) {
+            NBTTagCompound freqTag = fluidBufferList.getCompoundTagAt(i);
+            NBTTagList fluids = freqTag.getTagList("Fluids", Constants.NBT.TAG_COMPOUND);
+            List<FluidStack> buffer = new ArrayList<>();
+            for (int j = 0; j < fluids.tagCount(); j++) {
+                FluidStack fluid = FluidStack.loadFluidStackFromNBT(fluids.getCompoundTagAt(j));
+                if (fluid != null) {
+                    buffer.add(fluid);
+                }
             }
-            fluidPipesByFrequency.put(freq, locs);
-        }
-
-        gasPipesByFrequency.clear();
-        NBTTagList gasList = nbt.getTagList("GasFrequencies", Constants.NBT.TAG_COMPOUND);
-        for (int i = 0; i < gasList.tagCount(); i++) {
-            NBTTagCompound freqTag = gasList.getCompoundTagAt(i);
-            int freq = freqTag.getInteger("Freq");
-            NBTTagList locsList = freqTag.getTagList("Locs", Constants.NBT.TAG_COMPOUND);
-            List<TeleportLocation> locs = new ArrayList<>();
-            for (int j = 0; j < locsList.tagCount(); j++) {
-                locs.add(TeleportLocation.fromNBT(locsList.getCompoundTagAt(j)));
+            fluidBuffers.put(freqTag.getInteger("Freq"), buffer);
+        }
+
+        gasBuffers.clear();
+        NBTTagList gasBufferList = nbt.getTagList("GasBuffers", Constants.NBT.TAG_COMPOUND);
+        for (int i = 0; i < gasBufferList.tagCount(); i++) {
+            NBTTagCompound freqTag = gasBufferList.getCompoundTagAt(i);
+            NBTTagList gases = freqTag.getTagList("Gases", Constants.NBT.TAG_COMPOUND);
+            Map<String, Integer> buffer = new LinkedHashMap<>();
+            for (int j = 0; j < gases.tagCount(); j++) {
+                NBTTagCompound gasTag = gases.getCompoundTagAt(j);
+                buffer.put(gasTag.getString("Gas"), gasTag.getInteger("Amount"));
             }
-            gasPipesByFrequency.put(freq, locs);
+            gasBuffers.put(freqTag.getInteger("Freq"), buffer);
+        }
+    }
+
+    /**
+     * Read one pipe index, from the columnar format or else the old one (saved
+     * again in the columnar format).
+     */
+    private static void readPipes(NBTTagCompound nbt, PipeIndex index, String key, String legacyKey) {
+        if (nbt.hasKey(key, Constants.NBT.TAG_LIST)) {
+            index.readFromNBT(nbt.getTagList(key, Constants.NBT.TAG_COMPOUND));
+        } else {
+            index.readLegacyNBT(nbt.getTagList(legacyKey, Constants.NBT.TAG_COMPOUND));
         }
     }
 
     @Override
     public NBTTagCompound writeToNBT(NBTTagCompound nbt) {
-        NBTTagList list = new NBTTagList();
-        for (Map.Entry<Integer, List<TeleportLocation>> entry : pipesByFrequency.entrySet()) {
+        nbt.setTag("ItemPipes", itemPipes.writeToNBT());
+        nbt.setTag("FluidPipes", fluidPipes.writeToNBT());
+        nbt.setTag("GasPipes", gasPipes.writeToNBT());
+
+        if (itemBuffersSaved == null) {
+            itemBuffersSaved = writeItemBuffers();
+        }
+        nbt.setTag("ItemBuffers", itemBuffersSaved);
+        if (fluidBuffersSaved == null) {
+            fluidBuffersSaved = writeFluidBuffers();
+        }
+        nbt.setTag("FluidBuffers", fluidBuffersSaved);
+        if (gasBuffersSaved == null) {
+            gasBuffersSaved = writeGasBuffers();
+        }
+        nbt.setTag("GasBuffers", gasBuffersSaved);
+
+        return nbt;
+    }
+
+    private NBTTagList writeItemBuffers() {
+        NBTTagList itemBufferList = new NBTTagList();
+        for (Map.Entry<Integer, List<ItemStack>> entry : itemBuffers.entrySet()) {
+            if (entry.getValue().isEmpty())
+                continue;
             NBTTagCompound freqTag = new NBTTagCompound();
             freqTag.setInteger("Freq", entry.getKey());
-            NBTTagList locsList = new NBTTagList();
-            for (TeleportLocation loc : entry.getValue()) {
-                locsList.appendTag(loc.toNBT());
+            NBTTagList stacks = new NBTTagList();
+            for (ItemStack stack : entry.getValue()) {
+                stacks.appendTag(stack.writeToNBT(new NBTTagCompound()));
             }
-            freqTag.setTag("Locs", locsList);
-            list.appendTag(freqTag);
+            freqTag.setTag("Items", stacks);
+            itemBufferList.appendTag(freqTag);
         }
-        nbt.setTag("Frequencies", list);
+        return itemBufferList;
+    }
 
-        NBTTagList fluidList = new NBTTagList();
-        for (Map.Entry<Integer, List<TeleportLocation>> entry : fluidPipesByFrequency.entrySet()) {
+    private NBTTagList writeFluidBuffers() {
+        NBTTagList fluidBufferList = new NBTTagList();
+        for (Map.Entry<Integer, List<FluidStack>> entry : fluidBuffers.entrySet()) {
+            if (entry.getValue().isEmpty())
+                continue;
             NBTTagCompound freqTag = new NBTTagCompound();
             freqTag.setInteger("Freq", entry.getKey());
-            NBTTagList locsList = new NBTTagList();
-            for (TeleportLocation loc : entry.getValue()) {
-                locsList.appendTag(loc.toNBT());
+            NBTTagList fluids = new NBTTagList();
+            for (FluidStack fluid : entry.getValue()) {
+                fluids.appendTag(fluid.writeToNBT(new NBTTagCompound()));
             }
-            freqTag.setTag("Locs", locsList);
-            fluidList.appendTag(freqTag);
+            freqTag.setTag("Fluids", fluids);
+            fluidBufferList.appendTag(freqTag);
         }
-        nbt.setTag("FluidFrequencies", fluidList);
+        return fluidBufferList;
+    }
 
-        NBTTagList gasList = new NBTTagList();
-        for (Map.Entry<Integer, List<TeleportLocation>> entry : gasPipesByFrequency.entrySet()) {
+    private NBTTagList writeGasBuffers() {
+        NBTTagList gasBufferList = new NBTTagList();
+        for (Map.Entry<Integer, Map<String, Integer>> entry : gasBuffers.entrySet()) {
+            if (entry.getValue().isEmpty())
+                continue;
             NBTTagCompound freqTag = new NBTTagCompound();
             freqTag.setInteger("Freq", entry.getKey());
-            NBTTagList locsList = new NBTTagList();
-            for (TeleportLocation loc : entry.getValue()) {
-                locsList.appendTag(loc.toNBT());
+            NBTTagList gases = new NBTTagList();
+            for (Map.Entry<String, Integer> gas : entry.getValue().entrySet()) {
+                NBTTagCompound gasTag = new NBTTagCompound();
+                gasTag.setString("Gas", gas.getKey());
+                gasTag.setInteger("Amount", gas.getValue());
+                gases.appendTag(gasTag);
             }
-            freqTag.setTag("Locs", locsList);
-            gasList.appendTag(freqTag);
+            freqTag.setTag("Gases", gases);
+            gasBufferList.appendTag(freqTag);
         }
-        nbt.setTag("GasFrequencies", gasList);
-
-        return nbt;
+        return gasBufferList;
     }
 
     public static class TeleportLocation {
@@ -0,0 +1,35 @@
+package com.antigravity.advancedsorter.util;
+
+import com.antigravity.advancedsorter.AdvancedSorterMod;
+import com.antigravity.advancedsorter.ModConfig;
+import net.minecraft.world.World;
+import net.minecraftforge.common.DimensionManager;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
+import net.minecraftforge.fml.common.gameevent.TickEvent;
+
+/**
+ * Checks a few registered teleport pipes every tick (see
+ * TeleportRegistry#sweep) so entries of pipes that disappeared without
+ * unregistering are dropped eventually, without ever walking the whole
+ * registry in one tick. Pipes unregister themselves when removed or
+ * retuned; this only catches what that misses.
+ */
+@Mod.EventBusSubscriber(modid = AdvancedSorterMod.MODID)
+public class TeleportRegistrySweeper {
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || ModConfig.pipes.teleportSweepPerTick <= 0) {
+            return;
+        }
+        World overworld = DimensionManager.getWorld(0);
+        if (overworld == null) {
+            return;
+        }
+        int removed = TeleportRegistry.get(overworld).sweep(ModConfig.pipes.teleportSweepPerTick);
+        if (removed > 0) {
+            AdvancedSorterMod.logger.debug("Removed {} stale teleport pipe entries", removed);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.antigravity.advancedsorter.pipes;
+
+/**
+ * Item pipe without a world for driving PipeItemTicker directly. Items pick
+ * the same exit at the center and start over when they reach the end, so
+ * they keep moving forever without touching neighbors or sync.
+ */
+class LoopingPipe extends TileItemPipe {
+
+    LoopingPipe() {
+        super(PipeTier.IRON);
+    }
+
+    @Override
+    void onItemAtCenter(TravellingItem item) {
+        item.direction = item.source.getOpposite();
+    }
+
+    @Override
+    void onItemAtEnd(TravellingItem item) {
+        item.progress = 0.0f;
+        item.direction = null;
+    }
+}
@@ -0,0 +1,107 @@
+package com.antigravity.advancedsorter.pipes;
+
+import net.minecraft.init.Bootstrap;
+import net.minecraft.init.Items;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.EnumFacing;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Counts the bytes the hot item paths allocate on the test thread. The
+ * limits only leave room for measurement noise.
+ *
+ * What is covered:
+ * <ul>
+ * <li>PipeItemTicker's pass over its arrays, including the center and end
+ * callbacks being made (LoopingPipe stubs out what they do)</li>
+ * <li>receiveItem and coalesce merging a stack into an item already in the
+ * pipe, and taking a received stack over without copying it</li>
+ * </ul>
+ * What is not: the pipes have no world, so the real callbacks (isExpired,
+ * nextHop and route following, express runs, transferToNeighbor and
+ * inventory inserts) and item event queueing and flushing never run. Those
+ * need a server world, the network channel and injected capabilities, which
+ * this plain test classpath doesn't provide. Zero allocation per item per
+ * tick is only shown for the ticker loop and the merge path.
+ */
+public class PipeAllocationTest {
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @BeforeClass
+    public static void setUp() {
+        Bootstrap.register();
+        allocatedBytes(); // First call may allocate itself
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    @Test
+    public void tickerPassAllocatesNothing() {
+        int items = 10_000;
+        int ticks = 200;
+        PipeItemTicker ticker = PipeItemTickerBenchmark.fill(items, 4);
+        for (int i = 0; i < 2_000; i++) {
+            ticker.tick();
+        }
+
+        long before = allocatedBytes();
+        for (int i = 0; i < ticks; i++) {
+            ticker.tick();
+        }
+        long bytes = allocatedBytes() - before;
+
+        assertTrue("ticker allocated " + bytes + " bytes for " + items + " items over " + ticks + " ticks",
+                bytes < 16 * 1024);
+    }
+
+    @Test
+    public void receivedStackIsNotCopied() {
+        TileItemPipe pipe = new TileItemPipe();
+        ItemStack stack = new ItemStack(Items.IRON_INGOT, 8);
+
+        TravellingItem item = pipe.receiveItem(stack, EnumFacing.NORTH, false, null, 0, null);
+
+        assertSame(stack, item.stack);
+    }
+
+    @Test
+    public void mergingReceivedStacksWithoutWorldAllocatesNothing() {
+        int received = 10_000;
+        TileItemPipe pipe = new TileItemPipe();
+        TravellingItem target = pipe.receiveItem(new ItemStack(Items.IRON_INGOT), EnumFacing.NORTH, false,
+                null, 0, null);
+        ItemStack[] stacks = new ItemStack[received * 2];
+        for (int i = 0; i < stacks.length; i++) {
+            stacks[i] = new ItemStack(Items.IRON_INGOT);
+        }
+
+        receiveAll(pipe, target, stacks, 0, received); // Warm up
+        long before = allocatedBytes();
+        receiveAll(pipe, target, stacks, received, stacks.length);
+        long bytes = allocatedBytes() - before;
+
+        assertEquals(1, pipe.travellingItems.size());
+        assertTrue("merging " + received + " stacks allocated " + bytes + " bytes", bytes < 1024);
+    }
+
+    private static void receiveAll(TileItemPipe pipe, TravellingItem target, ItemStack[] stacks, int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertNull(pipe.receiveItem(stacks[i], EnumFacing.NORTH, false, null, 0, null));
+            if (target.stack.getCount() == target.stack.getMaxStackSize()) {
+                target.stack.setCount(1);
+            }
+        }
+    }
+}
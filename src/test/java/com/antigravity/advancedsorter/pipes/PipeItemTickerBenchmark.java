@@ -0,0 +1,61 @@
+package com.antigravity.advancedsorter.pipes;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.EnumFacing;
+
+/**
+ * Tick time of PipeItemTicker against the number of items in flight.
+ * Standalone, run the main method from the test classpath:
+ *
+ * <pre>
+ * PipeItemTickerBenchmark [items per pipe]
+ * </pre>
+ *
+ * Every item passes the center and the end of its pipe once per pipe length,
+ * so the numbers include the callbacks, just not what real pipes do in them.
+ */
+public class PipeItemTickerBenchmark {
+
+    private static final int[] ITEM_COUNTS = { 1_000, 10_000, 100_000 };
+    private static final int WARMUP_TICKS = 2_000;
+    private static final int MEASURED_TICKS = 2_000;
+
+    public static void main(String[] args) {
+        int perPipe = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+
+        System.out.printf("%10s %10s %12s %12s%n", "items", "pipes", "us/tick", "ns/item");
+        for (int items : ITEM_COUNTS) {
+            PipeItemTicker ticker = fill(items, perPipe);
+            for (int i = 0; i < WARMUP_TICKS; i++) {
+                ticker.tick();
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_TICKS; i++) {
+                ticker.tick();
+            }
+            double nsPerTick = (System.nanoTime() - start) / (double) MEASURED_TICKS;
+
+            System.out.printf("%10d %10d %12.1f %12.2f%n", items, (items + perPipe - 1) / perPipe,
+                    nsPerTick / 1000, nsPerTick / items);
+        }
+    }
+
+    /**
+     * A ticker with the given number of items, spread over pipes with
+     * perPipe items each at staggered progress.
+     */
+    static PipeItemTicker fill(int items, int perPipe) {
+        PipeItemTicker ticker = new PipeItemTicker();
+        TileItemPipe pipe = null;
+        for (int i = 0; i < items; i++) {
+            if (i % perPipe == 0) {
+                pipe = new LoopingPipe();
+            }
+            TravellingItem item = new TravellingItem(ItemStack.EMPTY, EnumFacing.NORTH);
+            item.progress = (i % perPipe) / (float) perPipe;
+            ticker.add(pipe, item);
+        }
+        return ticker;
+    }
+}
@@ -0,0 +1,79 @@
+package com.antigravity.advancedsorter.util;
+
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.List;
+
+/**
+ * Cost of the teleport registry's pipe index with 10k item pipes on 1k
+ * frequencies. Standalone, run the main method from the test classpath.
+ *
+ * Measures registering all pipes, looking up receivers of every frequency,
+ * switching pipes between send and receive (remove plus re-add) and saving.
+ */
+public class TeleportRegistryBenchmark {
+
+    private static final int PIPES = 10_000;
+    private static final int FREQUENCIES = 1_000;
+    private static final int ROUNDS = 20;
+
+    private static int sink; // Keeps lookups from being optimized away
+
+    public static void main(String[] args) {
+        BlockPos[] positions = new BlockPos[PIPES];
+        for (int i = 0; i < PIPES; i++) {
+            positions[i] = new BlockPos(i % 100, 64, i / 100);
+        }
+
+        long register = 0;
+        long lookup = 0;
+        long toggle = 0;
+        long save = 0;
+        for (int round = 0; round < ROUNDS * 2; round++) {
+            boolean measured = round >= ROUNDS; // First half warms up
+            TeleportRegistry registry = new TeleportRegistry();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < PIPES; i++) {
+                registry.registerPipe(i % FREQUENCIES, 0, positions[i], i % 2 == 0, i % 2 != 0);
+            }
+            long registered = System.nanoTime();
+
+            for (int freq = 0; freq < FREQUENCIES; freq++) {
+                List<TeleportRegistry.TeleportLocation> receivers = registry.getReceivers(freq);
+                sink += receivers.size();
+            }
+            long looked = System.nanoTime();
+
+            for (int i = 0; i < PIPES; i++) {
+                registry.registerPipe(i % FREQUENCIES, 0, positions[i], i % 2 != 0, i % 2 == 0);
+            }
+            long toggled = System.nanoTime();
+
+            sink += registry.writeToNBT(new NBTTagCompound()).getSize();
+            long saved = System.nanoTime();
+
+            if (measured) {
+                register += registered - start;
+                lookup += looked - registered;
+                toggle += toggled - looked;
+                save += saved - toggled;
+            }
+        }
+
+        System.out.printf("%d pipes, %d frequencies (%d)%n", PIPES, FREQUENCIES, sink);
+        System.out.printf("register all:    %10.1f us  %8.1f ns/pipe%n", us(register), ns(register, PIPES));
+        System.out.printf("receivers:       %10.1f us  %8.1f ns/frequency%n", us(lookup), ns(lookup, FREQUENCIES));
+        System.out.printf("toggle all:      %10.1f us  %8.1f ns/pipe%n", us(toggle), ns(toggle, PIPES));
+        System.out.printf("save:            %10.1f us%n", us(save));
+    }
+
+    private static double us(long total) {
+        return total / (double) ROUNDS / 1000;
+    }
+
+    private static double ns(long total, int count) {
+        return total / (double) ROUNDS / count;
+    }
+}